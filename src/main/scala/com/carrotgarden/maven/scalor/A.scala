@@ -101,6 +101,8 @@ object A {
 
     final val `setup-cross` = "setup-cross"
 
+    final val `watch` = "watch"
+
   }
 
   /**
@@ -12,7 +12,9 @@ import org.apache.maven.plugins.annotations.LifecyclePhase
 import org.apache.maven.plugins.annotations.ResolutionScope
 
 import com.carrotgarden.maven.scalor.base.Context.UpdateResult
+import com.carrotgarden.maven.scalor.scalajs.Closure
 import com.carrotgarden.maven.scalor.scalajs.Linker
+import com.carrotgarden.maven.scalor.scalajs.Metrics
 import com.carrotgarden.maven.tools.Description
 
 /**
@@ -77,38 +79,122 @@ trait ScalaJsLinkAnyMojo extends AbstractMojo
   }
 
   /**
-   * Produce linker runtime.js.
+   * Linker invocation context.
    */
-  def linkerInvoke(
+  def linkerContext(
     runtime :    File,
     options :    String,
     updateList : Array[ UpdateResult ]
-  ) : Unit = {
+  ) : Linker.Context = {
     val linkerOptions = Linker.Options.parse( options )
-    val context = Linker.Context(
+    Linker.Context(
       options          = linkerOptions,
       classpath        = linkerClassPath,
       runtime          = runtime,
       updateList       = updateList,
       initializerList  = linkerInitializerList,
       initializerRegex = linkerInitializerRegex,
+      cacheJarLimit    = linkerCacheJarLimit * 1024L * 1024L,
+      cacheJarHash     = linkerCacheJarHash,
+      cacheJarLazy     = linkerCacheJarLazy,
+      cacheIndexFile   = if ( linkerCacheIndexEnable ) Some( linkerCacheIndexFile ) else None,
+      closureCache     = linkerClosureCache,
+      metrics          = linkerMetrics,
+      enginePoolLimit  = if ( hasEnginePool ) linkerEnginePoolLimit else 0,
+      enginePoolMemory = linkerEnginePoolMemory,
       hasLogStats      = linkerLogBuildStats
     )
-    linkerReport( context )
-    linkerPerform( context )
+  }
+
+  /**
+   * Closure compiler output cache settings, when enabled.
+   */
+  def linkerClosureCache : Option[ Closure.Settings ] = {
+    if ( linkerClosureCacheEnable ) {
+      Some( Closure.Settings( linkerClosureCacheFolder, linkerClosureCacheLimit * 1024L * 1024L ) )
+    } else {
+      None
+    }
+  }
+
+  /**
+   * Use JVM-wide engine pool, in Eclipse/M2E only when requested.
+   */
+  def hasEnginePool : Boolean = {
+    linkerEnginePoolEnable && ( linkerEnginePoolEclipse || !hasEclipseContext )
+  }
+
+  /**
+   * Linker metrics report settings, when enabled.
+   */
+  def linkerMetrics : Option[ Metrics.Settings ] = {
+    if ( linkerLogMetrics ) {
+      val buildSession = s"${session.getExecutionRootDirectory}@${session.getRequest.getStartTime.getTime}"
+      Some( Metrics.Settings( linkerMetricsReport, linkerMetricsSummary, project.getId, buildSession ) )
+    } else {
+      None
+    }
+  }
+
+  /**
+   * Linker fingerprint file and digest, used in full build only.
+   */
+  def linkerFingerprint( context : Linker.Context ) : Option[ ( File, String ) ] = {
+    if ( linkerFingerprintEnable && !hasIncremental ) {
+      val file = Linker.fingerprintFile( linkerFingerprintFolder, context.runtime )
+      val digest = Linker.fingerprintDigest( context, linkerClassRegex )
+      Some( ( file, digest ) )
+    } else {
+      None
+    }
+  }
+
+  /**
+   * Verify that runtime is present and linker inputs did not change.
+   */
+  def linkerHasCurrent( context : Linker.Context, fingerprint : Option[ ( File, String ) ] ) : Boolean = {
+    import context._
+    val sourceMap = new File( runtime.getPath + ".map" )
+    fingerprint.exists {
+      case ( file, digest ) =>
+        runtime.isFile && ( !options.sourceMap || sourceMap.isFile ) &&
+          zinc.Fingerprint.hasCurrent( file, digest )
+    }
   }
 
   /**
    * Generate runtime.js and runtime.min.js.
+   * Runtime is kept when linker fingerprint is unchanged.
    */
   def performLinker( updateList : Array[ UpdateResult ] ) : Unit = {
-    val hasBuild = linkerHasBuild( hasIncremental )
-    if ( hasBuild ) {
-      linkerInvoke( linkerRuntimeFile, linkerRuntimeOptions, updateList )
+    val buildList = Seq(
+      ( linkerHasBuild( hasIncremental ), linkerRuntimeFile, linkerRuntimeOptions ),
+      ( linkerHasBuildMin( hasIncremental ), linkerRuntimeMinFile, linkerRuntimeMinOptions )
+    ).collect {
+      case ( true, runtime, options ) =>
+        val context = linkerContext( runtime, options, updateList )
+        ( context, linkerFingerprint( context ) )
+    }
+    val ( keepList, linkList ) = buildList.partition {
+      case ( context, fingerprint ) => linkerHasCurrent( context, fingerprint )
+    }
+    keepList.foreach {
+      case ( context, _ ) =>
+        logger.info( s"Linker runtime is up to date: ${context.runtime}" )
+    }
+    val contextList = linkList.map( _._1 )
+    contextList.foreach( linkerReport )
+    contextList.foreach { context =>
+      zinc.Fingerprint.remove( Linker.fingerprintFile( linkerFingerprintFolder, context.runtime ) )
+    }
+    if ( linkerConcurrentEnable && contextList.size > 1 ) {
+      linkerPerformConcurrent( contextList )
+    } else {
+      contextList.foreach( linkerPerform )
     }
-    val hasBuildMin = linkerHasBuildMin( hasIncremental )
-    if ( hasBuildMin ) {
-      linkerInvoke( linkerRuntimeMinFile, linkerRuntimeMinOptions, updateList )
+    linkList.foreach {
+      case ( _, fingerprint ) =>
+        fingerprint.foreach { case ( file, digest ) => zinc.Fingerprint.save( file, digest ) }
     }
   }
 
@@ -105,18 +105,21 @@ trait ScalaNativeLinkAnyMojo extends AbstractMojo
       .getOrElse( sys.error( s"Missing dependency: ${nativeNativeLibRegex}" ) )
 
     val params = Linker.Params(
-      gcType           = nativeGarbageCollector,
-      entryClass       = nativeEntryClass,
-      runtime          = runtime,
-      workDir          = nativeWorkdir,
-      nativeLib        = nativeLib,
-      cdataEnable      = nativeCdataEnable,
-      cdataFolders     = nativeCdataFolders,
-      cdataZipEnable   = nativeCdataZipEnable,
-      cdataZipFileName = nativeCdataZipFileName,
-      clangEnable      = nativeClangEnable,
-      clangFolders     = nativeClangFolders,
-      classPath        = linkerClassPath
+      gcType            = nativeGarbageCollector,
+      entryClass        = nativeEntryClass,
+      runtime           = runtime,
+      workDir           = nativeWorkdir,
+      nativeLib         = nativeLib,
+      cdataEnable       = nativeCdataEnable,
+      cdataFolders      = nativeCdataFolders,
+      cdataZipEnable    = nativeCdataZipEnable,
+      cdataZipFileName  = nativeCdataZipFileName,
+      clangEnable       = nativeClangEnable,
+      clangFolders      = nativeClangFolders,
+      classPath         = linkerClassPath,
+      objectCacheEnable = nativeObjectCacheEnable,
+      objectCacheFolder = nativeObjectCacheFolder,
+      objectCacheLimit  = nativeObjectCacheLimit * 1024L * 1024L
     )
 
     val options = Linker.Options(
@@ -132,7 +135,9 @@ trait ScalaNativeLinkAnyMojo extends AbstractMojo
       logStat         = nativeLogBuildStats,
       logProc         = nativeLogBuildProcs,
       logVert         = nativeLogBuildVerts,
-      linkStubs       = nativeOptionLinkStubs
+      logJobs         = nativeLogBuildJobs,
+      linkStubs       = nativeOptionLinkStubs,
+      jobsLimit       = nativeJobsLimit
     )
 
     val context = Linker.Context(
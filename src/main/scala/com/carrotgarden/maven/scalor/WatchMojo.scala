@@ -0,0 +1,154 @@
+package com.carrotgarden.maven.scalor
+
+import java.io.File
+
+import scala.util.Failure
+import scala.util.Success
+import scala.util.Try
+
+import org.apache.maven.plugin.AbstractMojo
+import org.apache.maven.plugins.annotations._
+
+import com.carrotgarden.maven.tools.Description
+
+import base.Watch
+
+@Description( """
+Continuous build: watch source folders and re-run plugin goals on change.
+Keeps Maven JVM alive, so that compiler and linker caches stay warm between cycles.
+Goals invoked from the watch cycle behave as incremental build:
+Scala.js and Scala.native linkers receive changed and deleted class files
+since the previous cycle and retain their caches in the plugin context.
+Use from command line in a single module, i.e.: <code>mvn scalor:watch</code>.
+Ignored in Eclipse/M2E.
+""" )
+@Mojo(
+  name                         = A.mojo.`watch`,
+  requiresDependencyResolution = ResolutionScope.TEST
+)
+class WatchMojo extends AbstractMojo
+  with base.Mojo
+  with base.Params
+  with base.ParamsAny
+  with base.Logging
+  with base.SkipMojo {
+
+  override def mojoName = A.mojo.`watch`
+
+  @Description( """
+  Flag to skip goal execution: <code>watch</code>.
+  """ )
+  @Parameter(
+    property     = "scalor.skipWatch",
+    defaultValue = "false"
+  )
+  var skipWatch : Boolean = _
+
+  override def hasSkipMojo = skipWatch
+
+  @Description( """
+  Plugin goals invoked in each watch cycle, in order.
+  Cycle stops at first failed goal and waits for next change.
+  Separator parameter: <a href="#commonSequenceSeparator"><b>commonSequenceSeparator</b></a>.
+  """ )
+  @Parameter(
+    property     = "scalor.watchGoalList",
+    defaultValue = """
+    compile ★
+    scala-js-link ★
+    scala-native-link ★
+    """
+  )
+  var watchGoalList : String = _
+
+  @Description( """
+  Folders watched for changes, including sub folders.
+  Separator parameter: <a href="#commonSequenceSeparator"><b>commonSequenceSeparator</b></a>.
+  """ )
+  @Parameter(
+    property     = "scalor.watchFolderList",
+    defaultValue = """
+    ${project.basedir}/src ★
+    """
+  )
+  var watchFolderList : String = _
+
+  @Description( """
+  Quiet period in milliseconds after last change event before next watch cycle,
+  so that a burst of file saves produces single cycle.
+  """ )
+  @Parameter(
+    property     = "scalor.watchDebounceDelay",
+    defaultValue = "300"
+  )
+  var watchDebounceDelay : Int = _
+
+  @Description( """
+  Maximum number of watch cycles, including the initial cycle.
+  Use <code>0</code> to watch until the build is interrupted.
+  """ )
+  @Parameter(
+    property     = "scalor.watchCycleLimit",
+    defaultValue = "0"
+  )
+  var watchCycleLimit : Int = _
+
+  /**
+   * Invoke configured goals, stop at first failure.
+   */
+  def performCycle( goalList : Seq[ String ] ) : Unit = {
+    goalList.iterator
+      .map { goal =>
+        Try( executeSelfMojo( goal ) ) match {
+          case Success( _ ) =>
+            true
+          case Failure( error ) =>
+            logger.fail( s"Watch goal failure: ${goal}: ${error.getMessage}" )
+            false
+        }
+      }
+      .find( success => !success )
+  }
+
+  def hasNextCycle( cycle : Int ) = watchCycleLimit <= 0 || cycle < watchCycleLimit
+
+  def performWatch() : Unit = {
+    val goalList = parseCommonList( watchGoalList ).toSeq
+    val folderList = parseCommonList( watchFolderList ).toSeq
+      .map( new File( _ ).getCanonicalFile )
+      .filter( _.isDirectory )
+    val watcher = Watch.Watcher( folderList )
+    try {
+      Watch.activate {
+        var cycle = 0
+        var hasNext = true
+        while ( hasNext ) {
+          cycle += 1
+          logger.info( s"Watch cycle #${cycle}: ${goalList.mkString( ", " )}" )
+          performCycle( goalList )
+          hasNext = hasNextCycle( cycle )
+          if ( hasNext ) {
+            logger.info( s"Watching for changes: ${folderList.mkString( ", " )}" )
+            val changeList = watcher.awaitChange( watchDebounceDelay )
+            logger.info( s"Detected changes: ${changeList.size}" )
+          }
+        }
+      }
+    } finally {
+      watcher.close()
+    }
+  }
+
+  override def perform() : Unit = {
+    if ( hasSkipMojo ) {
+      reportSkipReason( "Skipping disabled goal execution." )
+      return
+    }
+    if ( hasEclipseContext ) {
+      reportSkipReason( "Skipping watch in Eclipse." )
+      return
+    }
+    performWatch()
+  }
+
+}
@@ -8,6 +8,7 @@ import org.apache.maven.execution.MavenSession
 import org.apache.maven.plugins.annotations.Component
 import org.codehaus.plexus.util.Scanner
 import org.sonatype.plexus.build.incremental.BuildContext
+import org.sonatype.plexus.build.incremental.ThreadBuildContext
 
 import com.carrotgarden.maven.scalor.util
 import com.carrotgarden.maven.tools.Description
@@ -32,18 +33,28 @@ trait Context {
 
   /**
    * Extract incremental build state.
+   * Watch cycle state is retained in the plugin context.
    */
   def contextExtract[ T <: Object ]( key : String ) : Option[ T ] = {
-    Option( buildContext.getValue( key ).asInstanceOf[ T ] )
+    if ( Watch.hasActive ) {
+      pluginExtract[ T ]( key )
+    } else {
+      Option( buildContext.getValue( key ).asInstanceOf[ T ] )
+    }
   }
 
   /**
    * Persist incremental build state.
+   * Watch cycle state is retained in the plugin context.
    */
   def contextPersist[ T <: Object ]( key : String, option : Option[ T ] = None ) : Unit = {
-    option match {
-      case Some( value ) => buildContext.setValue( key, value )
-      case None          => buildContext.setValue( key, null )
+    if ( Watch.hasActive ) {
+      pluginPersist[ T ]( key, option )
+    } else {
+      option match {
+        case Some( value ) => buildContext.setValue( key, value )
+        case None          => buildContext.setValue( key, null )
+      }
     }
   }
 
@@ -92,20 +103,50 @@ trait Context {
    * List of files changed or deleted since previous build.
    */
   def contextUpdateResult( root : File, regex : Regex ) : UpdateResult = {
-    val changed = contextChangeResult( root, regex )
-    val deleted = contextDeleteResult( root, regex )
-    UpdateResult(
-      basedir = root,
-      changed = changed,
-      deleted = deleted
-    )
+    if ( Watch.hasActive ) {
+      return contextWatchResult( root, regex )
+    }
+    updateResultFrom( contextDelegate, hasIncremental, root, regex )
   }
 
   /**
    * List of files changed or deleted since previous build.
+   * Incremental build: scanners are created and invoked on the calling thread,
+   * since build context is bound to the build thread and is not thread-safe.
+   * Full build: roots are walked in parallel, without build context.
    */
   def contextUpdateResult( rootList : Array[ File ], regex : Regex ) : Array[ UpdateResult ] = {
-    rootList.map( root => contextUpdateResult( root, regex ) )
+    if ( Watch.hasActive ) {
+      return rootList.map( root => contextWatchResult( root, regex ) )
+    }
+    val context = contextDelegate
+    if ( hasIncremental ) {
+      rootList.map( root => updateResultFrom( context, true, root, regex ) )
+    } else {
+      rootList.par.map( root => updateResultFrom( context, false, root, regex ) ).toArray
+    }
+  }
+
+  /**
+   * List of files changed or deleted since previous watch cycle.
+   */
+  def contextWatchResult( root : File, regex : Regex ) : UpdateResult = {
+    val key = s"scalor-watch-snapshot@${root.getAbsolutePath}@${regex}"
+    val past = pluginExtract[ Watch.Snapshot ]( key ).getOrElse( Watch.Snapshot.empty )
+    val ( result, next ) = Watch.updateResultFrom( root, regex, past )
+    pluginPersist( key, Some( next ) )
+    result
+  }
+
+  /**
+   * Actual build context, resolved on the invoking thread,
+   * since Maven/M2E build context is bound to the build thread.
+   */
+  def contextDelegate : BuildContext = {
+    buildContext match {
+      case _ : ThreadBuildContext => ThreadBuildContext.getContext
+      case _                      => buildContext
+    }
   }
 
   /**
@@ -152,9 +193,9 @@ trait Context {
     buildContext.addMessage( sourcePomFile, 1, 1, message, BuildContext.SEVERITY_ERROR, error );
 
   /**
-   * Detect incremental build from IDE.
+   * Detect incremental build from IDE or from watch cycle.
    */
-  def hasIncremental = buildContext.isIncremental()
+  def hasIncremental = buildContext.isIncremental() || Watch.hasActive
 
   /**
    * Detect build invocation from IDE.
@@ -198,6 +239,63 @@ trait Context {
 
 object Context {
 
+  /**
+   * Combined change and delete detection for a root.
+   *
+   * Full build: single tree walk with the regex applied during the walk,
+   * no deleted files, same as full build scanners.
+   * Incremental build: change and delete scanners over build deltas,
+   * with include patterns derived from the regex, see [[includesFrom]],
+   * and the regex applied to the scanner result.
+   */
+  def updateResultFrom(
+    context :     BuildContext,
+    incremental : Boolean,
+    root :        File,
+    regex :       Regex
+  ) : UpdateResult = {
+    val matcher = regex.pattern.matcher( "" )
+    val includes = includesFrom( regex )
+    def scannerResult( scanner : Scanner ) : Array[ File ] = {
+      scanner.setIncludes( includes )
+      scanner.setExcludes( null )
+      scanner.scan()
+      scanner.getIncludedFiles
+        .filter { path => matcher.reset( path ).matches }
+        .map( path => new File( root, path ).getAbsoluteFile )
+    }
+    if ( incremental ) {
+      UpdateResult(
+        basedir = root,
+        changed = scannerResult( context.newScanner( root ) ),
+        deleted = scannerResult( context.newDeleteScanner( root ) )
+      )
+    } else {
+      UpdateResult(
+        basedir = root,
+        changed = util.Folder.fileListByRelativeRegex( root, matcher ),
+        deleted = Array.empty[ File ]
+      )
+    }
+  }
+
+  /**
+   * File suffix regex, such as <code>.+[.]scala</code> or <code>.+[.](java|scala)</code>.
+   */
+  val suffixRegex = """[.][+*](?:\[[.]\]|\\[.])(?:(\w+)|\((\w+(?:\|\w+)*)\))""".r
+
+  /**
+   * Scanner include patterns equivalent to, or wider than, a file regex,
+   * or <code>null</code> to include all files when regex has no known form.
+   */
+  def includesFrom( regex : Regex ) : Array[ String ] = {
+    regex.regex match {
+      case suffixRegex( single, null ) => Array( s"**/*.${single}" )
+      case suffixRegex( null, group )  => group.split( '|' ).map( suffix => s"**/*.${suffix}" )
+      case _                           => null
+    }
+  }
+
   /**
    * Incremental build change detection result.
    */
@@ -0,0 +1,141 @@
+package com.carrotgarden.maven.scalor.base
+
+import java.io.File
+import java.io.IOException
+import java.nio.file.FileSystems
+import java.nio.file.FileVisitResult
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.SimpleFileVisitor
+import java.nio.file.StandardWatchEventKinds._
+import java.nio.file.attribute.BasicFileAttributes
+import java.util.concurrent.TimeUnit
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable.ArrayBuffer
+import scala.util.matching.Regex
+
+import com.carrotgarden.maven.scalor.util
+
+/**
+ * Continuous build support for goal=watch.
+ *
+ * Watch cycle executes plugin goals on the watch thread,
+ * goals detect active watch cycle and behave as incremental build:
+ * state is retained in the plugin context, and changes are reported
+ * by comparison with file stamp snapshot from the previous cycle.
+ */
+object Watch {
+
+  private val active = new ThreadLocal[ java.lang.Boolean ] {
+    override def initialValue = java.lang.Boolean.FALSE
+  }
+
+  /**
+   * Detect goal invocation from an active watch cycle.
+   */
+  def hasActive : Boolean = active.get.booleanValue
+
+  /**
+   * Execute watch cycle body with active watch marker.
+   */
+  def activate[ T ]( body : => T ) : T = {
+    active.set( java.lang.Boolean.TRUE )
+    try {
+      body
+    } finally {
+      active.set( java.lang.Boolean.FALSE )
+    }
+  }
+
+  /**
+   * File stamps of a root: absolute path -> ( size, modified ).
+   */
+  case class Snapshot(
+    stampMap : Map[ String, ( Long, Long ) ]
+  )
+
+  object Snapshot {
+    val empty = Snapshot( Map.empty )
+  }
+
+  def snapshotFrom( fileList : Array[ File ] ) : Snapshot = {
+    Snapshot( fileList.map( file => ( file.getAbsolutePath, ( file.length, file.lastModified ) ) ).toMap )
+  }
+
+  /**
+   * Changed and deleted files under a root since the past snapshot.
+   */
+  def updateResultFrom(
+    root :  File,
+    regex : Regex,
+    past :  Snapshot
+  ) : ( Context.UpdateResult, Snapshot ) = {
+    val matcher = regex.pattern.matcher( "" )
+    val fileList = util.Folder.fileListByRelativeRegex( root, matcher )
+    val next = snapshotFrom( fileList )
+    val changed = fileList.filter { file =>
+      past.stampMap.get( file.getAbsolutePath ) != next.stampMap.get( file.getAbsolutePath )
+    }
+    val deleted = past.stampMap.keys
+      .filterNot( next.stampMap.contains )
+      .map( new File( _ ) ).toArray
+    ( Context.UpdateResult( root, changed, deleted ), next )
+  }
+
+  /**
+   * Recursive folder watcher with event debounce.
+   */
+  case class Watcher( rootList : Seq[ File ] ) {
+
+    val service = FileSystems.getDefault.newWatchService
+
+    rootList.filter( _.isDirectory ).foreach( root => register( root.toPath ) )
+
+    /**
+     * Watch folder tree.
+     */
+    def register( root : Path ) : Unit = {
+      Files.walkFileTree( root, new SimpleFileVisitor[ Path ] {
+        override def preVisitDirectory( folder : Path, attrs : BasicFileAttributes ) : FileVisitResult = {
+          folder.register( service, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY )
+          FileVisitResult.CONTINUE
+        }
+        override def visitFileFailed( file : Path, error : IOException ) : FileVisitResult = {
+          FileVisitResult.CONTINUE
+        }
+      } )
+    }
+
+    /**
+     * Block until first change, then collect changes until quiet for debounce period.
+     */
+    def awaitChange( debounce : Long ) : Seq[ Path ] = {
+      val changeList = ArrayBuffer[ Path ]()
+      var key = service.take()
+      while ( key != null ) {
+        val folder = key.watchable.asInstanceOf[ Path ]
+        key.pollEvents.asScala.foreach { event =>
+          if ( event.kind == OVERFLOW ) {
+            changeList += folder
+          } else {
+            val path = folder.resolve( event.context.asInstanceOf[ Path ] )
+            changeList += path
+            if ( event.kind == ENTRY_CREATE && Files.isDirectory( path ) ) {
+              register( path )
+            }
+          }
+        }
+        key.reset()
+        key = service.poll( debounce, TimeUnit.MILLISECONDS )
+      }
+      changeList.distinct
+    }
+
+    def close() : Unit = {
+      service.close()
+    }
+
+  }
+
+}
@@ -1,66 +1,125 @@
 package com.carrotgarden.maven.scalor.scalajs
 
 import java.io.File
+import java.nio.file.Files
+import java.security.DigestInputStream
+import java.security.MessageDigest
+import java.util.concurrent.ForkJoinPool
 import java.util.jar.JarFile
 
 import scala.collection.concurrent.TrieMap
+import scala.collection.immutable.HashMap
+import scala.collection.parallel.ForkJoinTaskSupport
 
 import org.scalajs.core.tools.io.FileVirtualBinaryFile
 import org.scalajs.core.tools.io.FileVirtualScalaJSIRFile
 import org.scalajs.core.tools.io.IRFileCache.IRContainer
 import org.scalajs.core.tools.io.IRFileCache.VirtualRelativeIRFile
+import org.scalajs.core.tools.io.MemVirtualBinaryFile
 import org.scalajs.core.tools.io.VirtualJarFile
 
 import com.carrotgarden.maven.scalor.base.Context.UpdateResult
+import com.carrotgarden.maven.scalor.util.Cache
+import com.carrotgarden.maven.scalor.util.Text
 
 /**
  * Incremental linker cacher.
+ *
+ * @param jarsLimit - retained jar IR size limit, bytes
  */
-case class Cacher() {
+case class Cacher( jarsLimit : Long = Cacher.defaultJarsLimit ) {
 
   import Cacher._
 
-  val linkerCache = new TrieMap[ LinkerKey, LinkerRoot ]()
+  val linkerCache = new TrieMap[ LinkerKey, DirsRoot ]()
+
+  /**
+   * Bounded cache for jars, keyed by jar content identity, weighted by IR size.
+   */
+  val jarsCache = new Cache[ JarKey, LinkerRoot ]( jarsLimit, weigh = _.sjsirSize )
+
+  /**
+   * Change retained jar IR size limit, bytes.
+   */
+  def resize( limit : Long ) : Unit = {
+    jarsCache.resize( limit )
+  }
 
   /**
    * Static cache for jars.
+   * Jar rebuilt at the same path produces new key and replaces stale entry.
+   * Jars are processed in parallel on a bounded pool, see [[scanSupport]].
+   * Lazy jar content is read on demand, see [[Index]].
    */
   def cachedJarsFiles(
-    classpath : Array[ File ]
+    classpath : Array[ File ],
+    hasHash :   Boolean       = false,
+    hasLazy :   Boolean       = false
   ) : Seq[ LinkerFile ] = {
-    classpath.toSeq.filter( _.isFile ).flatMap { path =>
-      val key = LinkerKey( path.getAbsolutePath )
-      val root = linkerCache.getOrElseUpdate( key, LinkerRoot( path, extractJar( path ) ) )
-      root.sjsirFiles
+    val jarList = classpath.toSeq.filter( _.isFile ).par
+    jarList.tasksupport = scanSupport
+    jarList.map { path =>
+      cachedJarRoot( path, hasHash, hasLazy ).sjsirFiles
+    }.seq.flatten
+  }
+
+  /**
+   * Provide jar cache root, extract jar outside of cache lock.
+   */
+  def cachedJarRoot(
+    path :    File,
+    hasHash : Boolean,
+    hasLazy : Boolean
+  ) : LinkerRoot = {
+    val key = jarKey( path, hasHash )
+    jarsCache.get( key ) match {
+      case Some( root ) =>
+        jarsCache( key )( root ) // record hit
+      case None =>
+        val sjsirFiles = if ( hasLazy ) Index.linkerFiles( path ) else None
+        val root = LinkerRoot( path, sjsirFiles.getOrElse( extractJar( path ) ) )
+        jarsCache.keys.filter( past => past.path == key.path && past != key ).foreach( jarsCache.remove )
+        jarsCache( key )( root )
     }
   }
 
   /**
    * Updatable cache for dirs.
+   * Update bookkeeping is proportional to the number of changes.
    */
   def cachedDirsFiles(
     classpath :  Array[ File ],
     updateList : Array[ UpdateResult ]
   ) : Seq[ LinkerFile ] = {
+    // First update result per base dir.
+    val updateMap = updateList.filter( _.hasUpdate ).reverseIterator
+      .map( result => ( result.basedir.getAbsolutePath, result ) ).toMap
     classpath.toSeq.filter( _.isDirectory ).flatMap { path =>
       val key = LinkerKey( path.getAbsolutePath )
-      val rootPast = linkerCache.getOrElseUpdate( key, LinkerRoot( path, extractDir( path ) ) )
-      val updateResult = updateList.find( result => result.hasUpdate && rootPast.hasBase( result.basedir ) )
-      val rootNext = updateResult.map( result => updateDirFiles( rootPast, result ) ).getOrElse( rootPast )
-      linkerCache.put( key, rootNext )
+      val rootPast = linkerCache.getOrElseUpdate( key, DirsRoot( path, extractDir( path ) ) )
+      val rootNext = updateMap.get( key.key ) match {
+        case Some( result ) =>
+          val rootNext = updateDirFiles( rootPast, result )
+          linkerCache.put( key, rootNext )
+          rootNext
+        case None =>
+          rootPast
+      }
       rootNext.sjsirFiles
     }
   }
 
   def report = {
-    val values = linkerCache.values
-    val dirs = values.filter( _.isDir )
+    val dirs = linkerCache.values
     val dirsNum = dirs.size
-    val dirsFiles = dirs.map( _.sjsirFiles.size ).sum
-    val jars = values.filter( _.isJar )
+    val dirsFiles = dirs.map( _.fileMap.size ).sum
+    val jars = jarsCache.values
     val jarsNum = jars.size
     val jarsFiles = jars.map( _.sjsirFiles.size ).sum
-    s"dirs/files=${dirsNum}/${dirsFiles} jars/files=${jarsNum}/${jarsFiles}"
+    val jarsSize = jarsCache.weight / 1024 / 1024
+    val stats = jarsCache.stats
+    s"dirs/files=${dirsNum}/${dirsFiles} jars/files=${jarsNum}/${jarsFiles} " +
+      s"jars/MB=${jarsSize} hit=${stats.hit} miss=${stats.miss} evict=${stats.evict}"
   }
 
 }
@@ -69,11 +128,53 @@ object Cacher {
 
   type LinkerFile = VirtualRelativeIRFile
 
+  /**
+   * Bounded JVM-wide pool for parallel jar processing.
+   */
+  lazy val scanSupport = new ForkJoinTaskSupport(
+    new ForkJoinPool( math.min( 8, Runtime.getRuntime.availableProcessors ) )
+  )
+
+  /**
+   * Default retained jar IR size limit, bytes.
+   */
+  val defaultJarsLimit = 256L * 1024 * 1024
+
   /**
    * Cache root identity.
    */
   case class LinkerKey( key : String ) extends AnyVal
 
+  /**
+   * Jar cache identity: path with content stamp and optional content hash.
+   */
+  case class JarKey(
+    path :     String,
+    size :     Long,
+    modified : Long,
+    hash :     String
+  )
+
+  def jarKey( file : File, hasHash : Boolean ) : JarKey = {
+    val hash = if ( hasHash ) jarHash( file ) else ""
+    JarKey( file.getAbsolutePath, file.length, file.lastModified, hash )
+  }
+
+  /**
+   * Jar content digest.
+   */
+  def jarHash( file : File ) : String = {
+    val digest = MessageDigest.getInstance( "MD5" )
+    val input = new DigestInputStream( Files.newInputStream( file.toPath ), digest )
+    try {
+      val buffer = new Array[ Byte ]( 64 * 1024 )
+      while ( input.read( buffer ) >= 0 ) {}
+    } finally {
+      input.close()
+    }
+    Text.renderHex( digest.digest )
+  }
+
   /**
    * Cache root resource: jar or dir.
    */
@@ -86,28 +187,57 @@ object Cacher {
     def isDir = path.isDirectory
     def isJar = path.isFile
     def hasBase( base : File ) = path.getAbsolutePath == base.getAbsolutePath
+    /**
+     * Retained IR size, bytes: in-memory content of extracted jar entries,
+     * and original entry size of on demand index entries,
+     * which approximates IR retained by the linker once read.
+     */
+    lazy val sjsirSize : Long = sjsirFiles.iterator.map {
+      case file : MemVirtualBinaryFile => file.content.length.toLong
+      case file : Index.IndexFile      => file.entry.size.toLong
+      case _                           => 0L
+    }.sum
+  }
+
+  /**
+   * Cache root resource: dir.
+   * Linker files are indexed by path relative to the dir,
+   * persistent map shares structure between updates.
+   */
+  case class DirsRoot(
+    // Original resource path.
+    path : File,
+    // Linker files extracted from path, by relative path.
+    fileMap : HashMap[ String, LinkerFile ]
+  ) {
+    def hasBase( base : File ) = path.getAbsolutePath == base.getAbsolutePath
+    /**
+     * Linker files snapshot, produced once per root update.
+     */
+    lazy val sjsirFiles : Seq[ LinkerFile ] = fileMap.values.toVector
+  }
+
+  object DirsRoot {
+    def apply( path : File, fileList : Seq[ LinkerFile ] ) : DirsRoot = {
+      DirsRoot( path, HashMap( fileList.map( file => ( file.relativePath, file ) ) : _* ) )
+    }
   }
 
   /**
    * Apply incremental changes to dir cache.
    */
   def updateDirFiles(
-    root :   LinkerRoot,
+    root :   DirsRoot,
     update : UpdateResult
-  ) : LinkerRoot = {
-    import scala.collection.mutable
+  ) : DirsRoot = {
     import update._
     require( hasDir( root.path ) )
     require( root.hasBase( basedir ) )
-    val resultMap = mutable.Map[ LinkerKey, LinkerFile ]()
-    resultMap ++= root.sjsirFiles.map( sjsir => ( LinkerKey( sjsir.path ), sjsir ) )
-    deleted.foreach { file =>
-      resultMap.remove( LinkerKey( file.getAbsolutePath ) )
-    }
-    changed.foreach { file =>
-      resultMap.put( LinkerKey( file.getAbsolutePath ), linkerFile( basedir, file ) )
+    val fileMapPast = root.fileMap -- deleted.map( file => relativePath( basedir, file ) )
+    val fileMapNext = changed.foldLeft( fileMapPast ) { ( fileMap, file ) =>
+      fileMap.updated( relativePath( basedir, file ), linkerFile( basedir, file ) )
     }
-    root.copy( sjsirFiles = resultMap.values.toSeq )
+    root.copy( fileMap = fileMapNext )
   }
 
   def hasDir( file : File ) : Boolean = {
@@ -115,7 +245,7 @@ object Cacher {
   }
 
   def hasJar( file : File ) : Boolean = {
-    try { new JarFile( file ); true } catch { case error : Throwable => false }
+    try { new JarFile( file ).close(); true } catch { case error : Throwable => false }
   }
 
   def linkerJar( file : File ) : VirtualJarFile = {
@@ -149,8 +279,11 @@ object Cacher {
   }
 
   def linkerFile( baseDir : File, ir : File ) : LinkerFile = {
-    val relDir = ir.getPath.stripPrefix( baseDir.getPath )
-    FileVirtualScalaJSIRFile.relative( ir, relDir )
+    FileVirtualScalaJSIRFile.relative( ir, relativePath( baseDir, ir ) )
+  }
+
+  def relativePath( baseDir : File, ir : File ) : String = {
+    ir.getPath.stripPrefix( baseDir.getPath )
   }
 
 }
@@ -0,0 +1,236 @@
+package com.carrotgarden.maven.scalor.scalajs
+
+import java.io.File
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.security.MessageDigest
+
+import scala.collection.Seq
+import scala.util.Try
+
+import org.scalajs.core.ir.ScalaJSVersions
+import org.scalajs.core.tools.io.VirtualJSFile
+import org.scalajs.core.tools.io.VirtualScalaJSIRFile
+import org.scalajs.core.tools.io.WritableMemVirtualJSFile
+import org.scalajs.core.tools.io.WritableVirtualJSFile
+import org.scalajs.core.tools.linker.GenLinker
+import org.scalajs.core.tools.linker.LinkingUnit
+import org.scalajs.core.tools.linker.ModuleInitializer
+import org.scalajs.core.tools.linker.StandardLinker
+import org.scalajs.core.tools.linker.analyzer.SymbolRequirement
+import org.scalajs.core.tools.linker.backend.BasicLinkerBackend
+import org.scalajs.core.tools.linker.backend.LinkerBackend
+import org.scalajs.core.tools.linker.backend.closure.ClosureLinkerBackend
+import org.scalajs.core.tools.logging.Logger
+
+import com.carrotgarden.maven.scalor.util.Folder._
+import com.carrotgarden.maven.scalor.util.Text
+
+/**
+ * Content-addressed cache of Google Closure compiler output.
+ *
+ * Cache key is a digest of the JavaScript and source map produced by the
+ * regular emitter from the same linking unit, which is the input of Closure,
+ * and of the linker configuration which affects Closure output.
+ * Cache folder is shared by all projects and branches which use the same location.
+ */
+object Closure {
+
+  /**
+   * Closure output cache location and size limit, bytes.
+   */
+  case class Settings(
+    folder : File,
+    limit :  Long
+  )
+
+  /**
+   * Cached Closure output.
+   */
+  case class Entry(
+    content :   String,
+    sourceMap : Option[ String ]
+  )
+
+  val contentSuffix = ".js"
+  val sourceMapSuffix = ".js.map"
+
+  /**
+   * Linker which runs Closure only when emitter output is not in the cache.
+   *
+   * Frontend is a standard linker without Closure, backends are the standard
+   * emitter and Closure backends with the same configuration.
+   *
+   * @param configId - stable identity of linker configuration
+   */
+  case class CacheLinker(
+    config :   StandardLinker.Config,
+    configId : String,
+    settings : Settings
+  ) extends GenLinker {
+
+    val frontend = StandardLinker( config.withClosureCompilerIfAvailable( false ) )
+
+    val backendConfig = LinkerBackend.Config()
+      .withRelativizeSourceMapBase( config.relativizeSourceMapBase )
+      .withPrettyPrint( config.prettyPrint )
+
+    val emitterBackend = new BasicLinkerBackend(
+      config.semantics, config.esFeatures, config.moduleKind, config.sourceMap, backendConfig
+    )
+
+    val closureBackend = new ClosureLinkerBackend(
+      config.semantics, config.esFeatures, config.moduleKind, config.sourceMap, backendConfig
+    )
+
+    override def semantics = frontend.semantics
+
+    override def esLevel = frontend.esLevel
+
+    override def linkUnit(
+      irFiles :            Seq[ VirtualScalaJSIRFile ],
+      moduleInitializers : Seq[ ModuleInitializer ],
+      symbolRequirements : SymbolRequirement,
+      logger :             Logger
+    ) : LinkingUnit = {
+      frontend.linkUnit( irFiles, moduleInitializers, symbolRequirements, logger )
+    }
+
+    override def link(
+      irFiles :            Seq[ VirtualScalaJSIRFile ],
+      moduleInitializers : Seq[ ModuleInitializer ],
+      output :             WritableVirtualJSFile,
+      logger :             Logger
+    ) : Unit = {
+      val unit = linkUnit( irFiles, moduleInitializers, closureBackend.symbolRequirements, logger )
+      val source = WritableMemVirtualJSFile( output.path )
+      logger.time( "Closure cache: Emitter" ) {
+        emitterBackend.emit( unit, source, logger )
+      }
+      val key = cacheKey( configId, output, source )
+      readEntry( settings, key, config.sourceMap ) match {
+        case Some( entry ) =>
+          logger.info( s"Closure cache hit: ${key}" )
+          writeOutput( output, entry )
+        case None =>
+          val target = WritableMemVirtualJSFile( output.path )
+          closureBackend.emit( unit, target, logger )
+          val entry = Entry( target.content, target.sourceMap )
+          writeOutput( output, entry )
+          Try( writeEntry( settings, key, entry ) ).failed.foreach { error =>
+            logger.warn( s"Closure cache persist failure: ${settings.folder}: ${error.getMessage}" )
+          }
+      }
+    }
+
+  }
+
+  /**
+   * Cache key: Closure input and Closure configuration.
+   */
+  def cacheKey(
+    configId : String,
+    output :   VirtualJSFile,
+    source :   VirtualJSFile
+  ) : String = {
+    val digest = MessageDigest.getInstance( "MD5" )
+    def update( text : String ) : Unit = {
+      digest.update( text.getBytes( StandardCharsets.UTF_8 ) )
+      digest.update( 0.toByte )
+    }
+    update( ScalaJSVersions.current )
+    update( configId )
+    update( output.name )
+    update( source.content )
+    update( source.sourceMap.getOrElse( "" ) )
+    Text.renderHex( digest.digest )
+  }
+
+  def contentFile( settings : Settings, key : String ) = new File( settings.folder, key + contentSuffix )
+
+  def sourceMapFile( settings : Settings, key : String ) = new File( settings.folder, key + sourceMapSuffix )
+
+  /**
+   * Extract cached output, refresh entry usage time.
+   */
+  def readEntry( settings : Settings, key : String, hasSourceMap : Boolean ) : Option[ Entry ] = {
+    val content = contentFile( settings, key )
+    val sourceMap = sourceMapFile( settings, key )
+    if ( !content.isFile || ( hasSourceMap && !sourceMap.isFile ) ) {
+      return None
+    }
+    Try {
+      val entry = Entry(
+        loadString( content ),
+        if ( hasSourceMap ) Some( loadString( sourceMap ) ) else None
+      )
+      val time = System.currentTimeMillis
+      content.setLastModified( time )
+      sourceMap.setLastModified( time )
+      entry
+    }.toOption
+  }
+
+  /**
+   * Persist output into cache, then evict least recently used entries above size limit.
+   */
+  def writeEntry( settings : Settings, key : String, entry : Entry ) : Unit = {
+    ensureFolder( settings.folder )
+    entry.sourceMap.foreach( text => writeAtomic( sourceMapFile( settings, key ), text ) )
+    writeAtomic( contentFile( settings, key ), entry.content )
+    ensureLimit( settings )
+  }
+
+  def writeAtomic( file : File, text : String ) : Unit = {
+    val temp = File.createTempFile( file.getName + ".", ".tmp", file.getParentFile )
+    try {
+      persistString( temp, text )
+      Files.move( temp.toPath, file.toPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE )
+    } finally {
+      Files.deleteIfExists( temp.toPath )
+    }
+  }
+
+  /**
+   * Cache entry key of a cache file, if any.
+   */
+  def entryKey( file : File ) : Option[ String ] = {
+    val name = file.getName
+    Seq( sourceMapSuffix, contentSuffix ).find( name.endsWith( _ ) ).map( suffix => name.stripSuffix( suffix ) )
+  }
+
+  /**
+   * Remove least recently used cache entries above size limit,
+   * entry content and source map are removed together.
+   */
+  def ensureLimit( settings : Settings ) : Unit = {
+    val fileList = Option( settings.folder.listFiles ).getOrElse( Array.empty[ File ] ).filter( _.isFile )
+    val entryList = fileList.flatMap( file => entryKey( file ).map( key => ( key, file ) ) )
+      .groupBy( _._1 ).values.map( _.map( _._2 ) ).toArray
+      .sortBy( _.map( _.lastModified ).max )
+    var total = entryList.map( _.map( _.length ).sum ).sum
+    entryList.iterator.takeWhile( _ => total > settings.limit ).foreach { entry =>
+      total -= entry.map( _.length ).sum
+      entry.foreach( file => Files.deleteIfExists( file.toPath ) )
+    }
+  }
+
+  def writeOutput( output : WritableVirtualJSFile, entry : Entry ) : Unit = {
+    val contentWriter = output.contentWriter
+    try {
+      contentWriter.write( entry.content )
+    } finally {
+      contentWriter.close()
+    }
+    entry.sourceMap.foreach { text =>
+      val sourceMapWriter = output.sourceMapWriter
+      try {
+        sourceMapWriter.write( text )
+      } finally {
+        sourceMapWriter.close()
+      }
+    }
+  }
+
+}
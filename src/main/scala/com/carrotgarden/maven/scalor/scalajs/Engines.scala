@@ -0,0 +1,161 @@
+package com.carrotgarden.maven.scalor.scalajs
+
+import java.lang.management.ManagementFactory
+import java.lang.management.MemoryType
+import java.util.LinkedHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+
+import scala.collection.JavaConverters._
+
+/**
+ * JVM-wide pool of Scala.js linker engines, shared by all projects,
+ * so that linker IR, optimizer and emitter caches for common dependency jars
+ * are re-used across reactor modules and across Eclipse/M2E builds.
+ *
+ * Engine is not thread-safe, therefore it is checked out for a single link and then returned.
+ * Pool retains at most one idle engine per engine identity; idle engines are
+ * evicted least-recently-used above the count limit, and one at a time
+ * while heap usage after the last collection exceeds the memory limit.
+ */
+object Engines {
+
+  import Linker.Engine
+
+  /**
+   * Engine pool usage statistics.
+   */
+  case class Stats(
+    idle :    Int,
+    created : Long,
+    reused :  Long,
+    evicted : Long
+  ) {
+    def report = s"idle=${idle} created=${created} reused=${reused} evicted=${evicted}"
+  }
+
+  private val idleMap = new LinkedHashMap[ String, Engine ]( 16, 0.75f, true )
+
+  @volatile private var createdCount = 0L
+  @volatile private var reusedCount = 0L
+  @volatile private var evictedCount = 0L
+
+  /**
+   * Maximum number of retained idle engines.
+   */
+  @volatile var limit = 4
+
+  /**
+   * Maximum heap usage, percent of maximum heap, above which idle engines are evicted.
+   */
+  @volatile var memory = 75
+
+  private val hasLimit = new AtomicBoolean()
+
+  /**
+   * Apply pool limits once per JVM: first configuring execution wins,
+   * so that projects with different limits do not override each other.
+   */
+  def configure( limit : Int, memory : Int ) : Unit = {
+    if ( hasLimit.compareAndSet( false, true ) ) {
+      resize( limit, memory )
+    }
+  }
+
+  /**
+   * Change pool limits, evict idle engines above new limits.
+   */
+  def resize( limit : Int, memory : Int ) : Unit = synchronized {
+    this.limit = limit
+    this.memory = memory
+    ensureLimit()
+  }
+
+  /**
+   * Provide idle engine with given identity, or create new one.
+   */
+  def checkout( engineId : String )( provide : => Engine ) : Engine = {
+    val engine = synchronized {
+      val engine = idleMap.remove( engineId )
+      if ( engine != null ) {
+        reusedCount += 1
+      }
+      engine
+    }
+    if ( engine != null ) {
+      engine
+    } else {
+      synchronized { createdCount += 1 }
+      provide
+    }
+  }
+
+  /**
+   * Return engine to the pool after link.
+   */
+  def release( engineId : String, engine : Engine ) : Unit = synchronized {
+    if ( idleMap.containsKey( engineId ) || limit <= 0 ) {
+      evictEngine( engine )
+    } else {
+      idleMap.put( engineId, engine )
+    }
+    ensureLimit()
+  }
+
+  /**
+   * Remove all idle engines.
+   */
+  def clear() : Unit = synchronized {
+    while ( !idleMap.isEmpty ) {
+      evictEldest()
+    }
+  }
+
+  def stats : Stats = synchronized {
+    Stats( idleMap.size, createdCount, reusedCount, evictedCount )
+  }
+
+  def report : String = stats.report
+
+  /**
+   * Heap usage after the last collection, bytes, which excludes uncollected garbage.
+   */
+  def collectionUsage : Long = {
+    ManagementFactory.getMemoryPoolMXBeans.asScala
+      .filter( _.getType == MemoryType.HEAP )
+      .flatMap( pool => Option( pool.getCollectionUsage ) )
+      .map( _.getUsed ).sum
+  }
+
+  /**
+   * Detect heap usage after collection above memory limit.
+   */
+  def hasPressure : Boolean = {
+    collectionUsage * 100 > Runtime.getRuntime.maxMemory * memory
+  }
+
+  /**
+   * Evict idle engines above count limit, and a single idle engine under memory pressure,
+   * since evicted engine memory is released only by the next collection.
+   */
+  private def ensureLimit() : Unit = {
+    while ( idleMap.size > math.max( limit, 0 ) ) {
+      evictEldest()
+    }
+    if ( !idleMap.isEmpty && hasPressure ) {
+      evictEldest()
+    }
+  }
+
+  private def evictEldest() : Unit = {
+    val iter = idleMap.entrySet.iterator
+    val entry = iter.next
+    iter.remove()
+    evictEngine( entry.getValue )
+  }
+
+  private def evictEngine( engine : Engine ) : Unit = {
+    evictedCount += 1
+    engine.linker.clear()
+  }
+
+}
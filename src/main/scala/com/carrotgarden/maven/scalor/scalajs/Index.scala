@@ -0,0 +1,353 @@
+package com.carrotgarden.maven.scalor.scalajs
+
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.nio.file.StandardOpenOption
+import java.util.zip.Deflater
+import java.util.zip.DeflaterOutputStream
+import java.util.zip.Inflater
+import java.util.zip.InflaterInputStream
+
+import scala.collection.concurrent.TrieMap
+import scala.collection.mutable.ArrayBuffer
+import scala.util.Try
+
+import org.scalajs.core.tools.io.RelativeVirtualFile
+import org.scalajs.core.tools.io.VirtualSerializedScalaJSIRFile
+
+import com.carrotgarden.maven.scalor.util.Folder._
+
+/**
+ * Persistent JVM-wide index of Scala.js IR entries in class path jars.
+ *
+ * Index records location of each <code>*.sjsir</code> entry inside a jar,
+ * so that unchanged jars are not re-scanned, and entry content is read
+ * on demand from jar when linker requests it.
+ * Jars are read via short-lived file channels and are never held open,
+ * entry content is read only from a jar which is unchanged since indexing.
+ *
+ * Index entries are keyed by canonical jar path and verified by jar size and
+ * modification time. Index file is shared by all projects which use the same location.
+ */
+object Index {
+
+  /**
+   * Location of IR entry content inside a jar.
+   *
+   * @param name - entry path inside jar
+   * @param method - zip compression method: stored or deflated
+   * @param compressed - compressed content size, bytes
+   * @param size - original content size, bytes
+   * @param offset - content offset from jar start, bytes
+   */
+  case class Entry(
+    name :       String,
+    method :     Int,
+    compressed : Int,
+    size :       Int,
+    offset :     Long
+  )
+
+  /**
+   * IR entries of a jar at a given jar state.
+   */
+  case class Record(
+    size :      Long,
+    modified :  Long,
+    entryList : Seq[ Entry ]
+  ) {
+    def hasCurrent( jar : File ) = jar.length == size && jar.lastModified == modified
+  }
+
+  val magic = 0x534A4952 // "SJIR"
+  val version = 1
+
+  val sjsirSuffix = ".sjsir"
+
+  val STORED = 0
+  val DEFLATED = 8
+
+  /**
+   * Indexed jars, keyed by canonical jar path.
+   */
+  val recordMap = TrieMap[ String, Record ]()
+
+  /**
+   * Index files already merged into memory.
+   */
+  val loadedSet = TrieMap[ String, Boolean ]()
+
+  @volatile var hasChange = false
+
+  /**
+   * Lazy linker files of a jar, when jar layout is supported by the index.
+   */
+  def linkerFiles( jar : File ) : Option[ Seq[ Cacher.LinkerFile ] ] = {
+    provideRecord( jar ).map { record =>
+      val source = Source( jar, record.size, record.modified )
+      val version = Some( record.modified.toString )
+      record.entryList.map( entry => IndexFile( source, entry, version ) )
+    }
+  }
+
+  /**
+   * Provide current index record for a jar, scan jar when missing or changed.
+   */
+  def provideRecord( jar : File ) : Option[ Record ] = {
+    val key = jar.getCanonicalPath
+    recordMap.get( key ).filter( _.hasCurrent( jar ) ).orElse {
+      val record = scanRecord( jar )
+      record.foreach { record =>
+        recordMap.put( key, record )
+        hasChange = true
+      }
+      record
+    }
+  }
+
+  /**
+   * Extract IR entry locations from jar central directory.
+   * Produces none for unsupported layout, such as zip64 or unknown compression.
+   */
+  def scanRecord( jar : File ) : Option[ Record ] = {
+    val size = jar.length
+    val modified = jar.lastModified
+    Try {
+      withChannel( jar ) { channel =>
+        val tailSize = math.min( channel.size, 22 + 0xFFFF ).toInt
+        val tail = readBuffer( channel, channel.size - tailSize, tailSize )
+        val endOffset = locateEnd( tail )
+        val entryCount = unsignedShort( tail, endOffset + 10 )
+        val directorySize = unsignedInt( tail, endOffset + 12 )
+        val directoryOffset = unsignedInt( tail, endOffset + 16 )
+        require( entryCount < 0xFFFF && directoryOffset < 0xFFFFFFFFL, "Unsupported zip64." )
+        val buffer = readBuffer( channel, directoryOffset, directorySize.toInt )
+        val entryList = ArrayBuffer[ Entry ]()
+        var offset = 0
+        for ( _ <- 0 until entryCount ) {
+          require( buffer.getInt( offset ) == 0x02014b50, "Invalid central directory." )
+          val method = unsignedShort( buffer, offset + 10 )
+          val compressed = unsignedInt( buffer, offset + 20 )
+          val original = unsignedInt( buffer, offset + 24 )
+          val nameLength = unsignedShort( buffer, offset + 28 )
+          val extraLength = unsignedShort( buffer, offset + 30 )
+          val commentLength = unsignedShort( buffer, offset + 32 )
+          val localOffset = unsignedInt( buffer, offset + 42 )
+          val name = readString( buffer, offset + 46, nameLength )
+          if ( name.endsWith( sjsirSuffix ) ) {
+            require( method == STORED || method == DEFLATED, "Unsupported compression." )
+            require( compressed < 0xFFFFFFFFL && original < 0xFFFFFFFFL && localOffset < 0xFFFFFFFFL, "Unsupported zip64." )
+            val local = readBuffer( channel, localOffset, 30 )
+            require( local.getInt( 0 ) == 0x04034b50, "Invalid local header." )
+            val dataOffset = localOffset + 30 + unsignedShort( local, 26 ) + unsignedShort( local, 28 )
+            entryList += Entry( name, method, compressed.toInt, original.toInt, dataOffset )
+          }
+          offset += 46 + nameLength + extraLength + commentLength
+        }
+        Record( size, modified, entryList.toList )
+      }
+    }.toOption
+  }
+
+  /**
+   * Find end of central directory record.
+   */
+  def locateEnd( buffer : ByteBuffer ) : Int = {
+    val last = buffer.limit - 22
+    val first = math.max( 0, last - 0xFFFF )
+    ( last to first by -1 ).find( offset => buffer.getInt( offset ) == 0x06054b50 )
+      .getOrElse( throw new IllegalStateException( "Missing central directory." ) )
+  }
+
+  def unsignedShort( buffer : ByteBuffer, offset : Int ) : Int = buffer.getShort( offset ) & 0xFFFF
+
+  def unsignedInt( buffer : ByteBuffer, offset : Int ) : Long = buffer.getInt( offset ) & 0xFFFFFFFFL
+
+  def readString( buffer : ByteBuffer, offset : Int, length : Int ) : String = {
+    new String( readBytes( buffer, offset, length ), StandardCharsets.UTF_8 )
+  }
+
+  def readBytes( buffer : ByteBuffer, offset : Int, length : Int ) : Array[ Byte ] = {
+    val array = new Array[ Byte ]( length )
+    val view = buffer.duplicate
+    view.position( offset )
+    view.get( array )
+    array
+  }
+
+  /**
+   * Invoke function with jar file channel, channel is closed on return.
+   */
+  def withChannel[ T ]( jar : File )( function : FileChannel => T ) : T = {
+    val channel = FileChannel.open( jar.toPath, StandardOpenOption.READ )
+    try {
+      function( channel )
+    } finally {
+      channel.close()
+    }
+  }
+
+  /**
+   * Read file region into memory.
+   */
+  def readBuffer( channel : FileChannel, offset : Long, length : Int ) : ByteBuffer = {
+    val buffer = ByteBuffer.allocate( length ).order( ByteOrder.LITTLE_ENDIAN )
+    while ( buffer.hasRemaining ) {
+      if ( channel.read( buffer, offset + buffer.position ) < 0 ) {
+        throw new IllegalStateException( "Truncated file." )
+      }
+    }
+    buffer.flip()
+    buffer
+  }
+
+  /**
+   * Read entry content from jar.
+   */
+  def readEntry( channel : FileChannel, entry : Entry ) : Array[ Byte ] = {
+    import entry._
+    method match {
+      case STORED =>
+        readBuffer( channel, offset, size ).array
+      case DEFLATED =>
+        // Raw inflater expects extra trailing input byte.
+        val input = new Array[ Byte ]( compressed + 1 )
+        readBuffer( channel, offset, compressed ).get( input, 0, compressed )
+        val inflater = new Inflater( true )
+        try {
+          inflater.setInput( input )
+          val output = new Array[ Byte ]( size )
+          var count = 0
+          while ( count < size ) {
+            val next = inflater.inflate( output, count, size - count )
+            if ( next == 0 && ( inflater.finished || inflater.needsInput || inflater.needsDictionary ) ) {
+              throw new IllegalStateException( s"Invalid entry content: ${name}" )
+            }
+            count += next
+          }
+          output
+        } finally {
+          inflater.end()
+        }
+    }
+  }
+
+  /**
+   * Jar state at indexing time, shared by its linker files.
+   */
+  case class Source(
+    jar :      File,
+    size :     Long,
+    modified : Long
+  ) {
+    def hasCurrent = jar.length == size && jar.lastModified == modified
+  }
+
+  /**
+   * Linker file which reads IR content from jar on demand.
+   */
+  case class IndexFile(
+    source :               Source,
+    entry :                Entry,
+    override val version : Option[ String ]
+  ) extends VirtualSerializedScalaJSIRFile with RelativeVirtualFile {
+    override def path = s"${source.jar.getPath}:${entry.name}"
+    override def relativePath = entry.name
+    override def exists = true
+    override def content = {
+      if ( !source.hasCurrent ) {
+        throw new IllegalStateException( s"Jar changed since indexing: ${source.jar}" )
+      }
+      withChannel( source.jar )( readEntry( _, entry ) )
+    }
+  }
+
+  /**
+   * Merge persisted index into memory, once per index file.
+   */
+  def load( indexFile : File ) : Unit = {
+    val key = indexFile.getCanonicalPath
+    if ( loadedSet.putIfAbsent( key, true ).isDefined || !indexFile.isFile ) {
+      return
+    }
+    Try {
+      val input = new DataInputStream( new InflaterInputStream(
+        new BufferedInputStream( new FileInputStream( indexFile ), 64 * 1024 )
+      ) )
+      try {
+        if ( input.readInt != magic || input.readInt != version ) {
+          return
+        }
+        val recordCount = input.readInt
+        for ( _ <- 0 until recordCount ) {
+          val path = input.readUTF
+          val size = input.readLong
+          val modified = input.readLong
+          val entryCount = input.readInt
+          val entryList = for ( _ <- 0 until entryCount ) yield {
+            Entry( input.readUTF, input.readInt, input.readInt, input.readInt, input.readLong )
+          }
+          recordMap.putIfAbsent( path, Record( size, modified, entryList ) )
+        }
+      } finally {
+        input.close()
+      }
+    }
+  }
+
+  /**
+   * Persist memory index when changed, drop records of removed jars.
+   */
+  def persist( indexFile : File ) : Unit = synchronized {
+    if ( !hasChange ) {
+      return
+    }
+    hasChange = false
+    ensureParent( indexFile )
+    val recordList = recordMap.toList.filter { case ( path, _ ) => new File( path ).isFile }
+    val tempFile = File.createTempFile( indexFile.getName + ".", ".tmp", indexFile.getParentFile )
+    try {
+      val output = new DataOutputStream( new DeflaterOutputStream(
+        new BufferedOutputStream( new FileOutputStream( tempFile ), 64 * 1024 ),
+        new Deflater( Deflater.BEST_SPEED )
+      ) )
+      try {
+        output.writeInt( magic )
+        output.writeInt( version )
+        output.writeInt( recordList.size )
+        recordList.foreach {
+          case ( path, record ) =>
+            output.writeUTF( path )
+            output.writeLong( record.size )
+            output.writeLong( record.modified )
+            output.writeInt( record.entryList.size )
+            record.entryList.foreach { entry =>
+              output.writeUTF( entry.name )
+              output.writeInt( entry.method )
+              output.writeInt( entry.compressed )
+              output.writeInt( entry.size )
+              output.writeLong( entry.offset )
+            }
+        }
+      } finally {
+        output.close()
+      }
+      Files.move( tempFile.toPath, indexFile.toPath,
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE )
+    } finally {
+      Try( Files.deleteIfExists( tempFile.toPath ) )
+    }
+  }
+
+}
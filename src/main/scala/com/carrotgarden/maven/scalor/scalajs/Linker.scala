@@ -2,6 +2,9 @@ package com.carrotgarden.maven.scalor.scalajs
 
 import java.io.File
 
+import scala.util.Try
+
+import org.scalajs.core.ir.ScalaJSVersions
 import org.scalajs.core.tools.io.WritableFileVirtualJSFile
 import org.scalajs.core.tools.linker.ClearableLinker
 import org.scalajs.core.tools.linker.GenLinker
@@ -13,6 +16,8 @@ import org.scalajs.core.tools.logging.Logger
 import com.carrotgarden.maven.scalor.base
 import com.carrotgarden.maven.scalor.base.Context.UpdateResult
 import com.carrotgarden.maven.scalor.eclipse
+import com.carrotgarden.maven.scalor.util.Folder
+import com.carrotgarden.maven.scalor.zinc
 import org.scalajs.core.tools.linker.ModuleInitializer
 
 /**
@@ -35,21 +40,91 @@ trait Linker {
   def linkerPerform(
     context : Context
   ) : Unit = {
+    linkerExecute( linkerPrepare( context ) )
+  }
+
+  /**
+   * Invoke several linker runs concurrently, i.e. runtime.js and runtime.min.js.
+   * Runs which share the same engine are invoked in sequence.
+   */
+  def linkerPerformConcurrent(
+    contextList : Seq[ Context ]
+  ) : Unit = {
+    val invocationList = contextList.map( linkerPrepare )
+    val hasDistinct = invocationList.map( _.engine ).distinct.size == invocationList.size
+    val invocationSeq = if ( hasDistinct ) invocationList.par else invocationList
+    invocationSeq.foreach { invocation =>
+      linkerExecute( invocation )
+      logger.info( s"Linker runtime ready: ${invocation.context.runtime}" )
+    }
+  }
+
+  /**
+   * Resolve linker resources from build context.
+   * Must run on the build thread, since build context is bound to it.
+   */
+  def linkerPrepare(
+    context : Context
+  ) : Invocation = {
     import context._
     val cacherId = linkerCacherId()
     val linkerCacher = contextValue[ Cacher ]( cacherId ) {
       logger.dbug( s"Creating cacher: ${cacherId}" )
       newCacher()
     }
-    val engineId = linkerEngineId( options )
-    val linkerEngine = contextValue[ Engine ]( engineId ) {
-      logger.dbug( s"Creating engine: ${engineId}" )
-      newEngine( options )
+    linkerCacher.resize( cacheJarLimit )
+    val engineId = linkerEngineId( options, closureCache )
+    val hasPool = enginePoolLimit > 0
+    val linkerEngine = if ( hasPool ) {
+      Engines.configure( enginePoolLimit, enginePoolMemory )
+      Engines.checkout( engineId ) {
+        logger.dbug( s"Creating pool engine: ${engineId}" )
+        newEngine( options, closureCache )
+      }
+    } else {
+      contextValue[ Engine ]( engineId ) {
+        logger.dbug( s"Creating engine: ${engineId}" )
+        newEngine( options, closureCache )
+      }
     }
+    Invocation( context, linkerCacher, linkerEngine, engineId, hasPool )
+  }
+
+  /**
+   * Invoke linker with resolved resources, on any thread.
+   */
+  def linkerExecute(
+    invocation : Invocation
+  ) : Unit = {
+    import invocation._
+    import context._
     val linkerLogger = if ( hasLogStats ) linkerTimeLogger else linkerBaseLogger
-    linkerEngine.link( context, linkerLogger, linkerCacher )
+    val collector = metrics.map( _ => new Metrics.Collector( linkerLogger ) )
+    cacheIndexFile.foreach( Index.load )
+    val usage = try {
+      engine.link( context, collector.getOrElse( linkerLogger ), cacher )
+    } finally {
+      if ( hasPool ) {
+        Engines.release( engineId, engine )
+      }
+    }
+    cacheIndexFile.foreach { indexFile =>
+      Try( Index.persist( indexFile ) ).failed.foreach { error =>
+        logger.warn( s"Linker index persist failure: ${indexFile}: ${error.getMessage}" )
+      }
+    }
+    for ( settings <- metrics; collector <- collector ) {
+      val report = collector.report( settings, runtime, usage )
+      Try( Metrics.persist( settings, report ) ).failed.foreach { error =>
+        logger.warn( s"Linker metrics persist failure: ${settings.report}: ${error.getMessage}" )
+      }
+      logger.info( s"Linker metrics: ${report.summary}" )
+    }
     if ( hasLogStats ) {
-      logger.info( s"Cacher stats: ${linkerCacher.report}" )
+      logger.info( s"Cacher stats: ${cacher.report}" )
+      if ( hasPool ) {
+        logger.info( s"Engine pool stats: ${Engines.report}" )
+      }
     }
   }
 
@@ -67,11 +142,32 @@ object Linker {
     updateList :       Array[ UpdateResult ],
     initializerList :  Array[ String ],
     initializerRegex : String,
+    cacheJarLimit :    Long,
+    cacheJarHash :     Boolean,
+    cacheJarLazy :     Boolean,
+    cacheIndexFile :   Option[ File ],
+    closureCache :     Option[ Closure.Settings ],
+    metrics :          Option[ Metrics.Settings ],
+    enginePoolLimit :  Int,
+    enginePoolMemory : Int,
     hasLogStats :      Boolean
   ) {
     def hasUpdate = updateList.count( _.hasUpdate ) > 0
   }
 
+  /**
+   * Linker invocation with resolved resources.
+   * Cacher is safe to share between concurrent invocations.
+   * Pool engine is returned to [[Engines]] after link.
+   */
+  case class Invocation(
+    context :  Context,
+    cacher :   Cacher,
+    engine :   Engine,
+    engineId : String,
+    hasPool :  Boolean
+  )
+
   /**
    * Incremental caching Scala.js linker.
    */
@@ -86,19 +182,28 @@ object Linker {
       context : Context,
       logger :  Logger,
       cacher :  Cacher
-    ) = {
+    ) : Metrics.Usage = {
       import context._
       logger.time( "Total invocation time" ) {
-        val sjsirDirsFiles = logger.time( s"Cacher: Process dirs" ) {
+        val statsPast = cacher.jarsCache.stats
+        val sjsirDirsFiles = logger.time( Metrics.cacherDirsTitle ) {
           cacher.cachedDirsFiles( classpath, updateList )
         }
-        val sjsirJarsFiles = logger.time( s"Cacher: Process jars" ) {
-          cacher.cachedJarsFiles( classpath )
+        val sjsirJarsFiles = logger.time( Metrics.cacherJarsTitle ) {
+          cacher.cachedJarsFiles( classpath, cacheJarHash, cacheJarLazy )
         }
+        val statsNext = cacher.jarsCache.stats
         val sjsirFiles = sjsirDirsFiles ++ sjsirJarsFiles
         val initList = newInitList( context )
         val output = WritableFileVirtualJSFile( runtime )
         linker.link( sjsirFiles, initList, output, logger )
+        Metrics.Usage(
+          dirsFiles     = sjsirDirsFiles.size,
+          dirsChanged   = updateList.filter( _.hasUpdate ).map( update => update.changed.size + update.deleted.size ).sum,
+          jarsFiles     = sjsirJarsFiles.size,
+          jarsExtracted = statsNext.miss - statsPast.miss,
+          jarsReused    = statsNext.hit - statsPast.hit
+        )
       }
     }
 
@@ -137,20 +242,45 @@ object Linker {
     }
   }
 
+  /**
+   * Linker fingerprint file of a runtime.
+   */
+  def fingerprintFile( folder : File, runtime : File ) : File = {
+    val path = runtime.getCanonicalPath
+    new File( folder, s"${runtime.getName}@${Integer.toHexString( path.hashCode )}.fingerprint" )
+  }
+
+  /**
+   * Linker fingerprint digest: linker configuration, IR stamps of class folders, jar stamps.
+   */
+  def fingerprintDigest( context : Context, classRegex : String ) : String = {
+    import context._
+    val entryList = Seq(
+      ScalaJSVersions.current,
+      Options.unparse( options ),
+      runtime.getCanonicalPath,
+      initializerRegex
+    ) ++ initializerList
+    val folderList = classpath.filter( _.isDirectory )
+    val jarList = classpath.filter( _.isFile )
+    val sjsirList = Folder.fileListByRegex( folderList, classRegex )
+    zinc.Fingerprint.digestFrom( entryList, sjsirList, jarList )
+  }
+
   def linkerCacherId() : String = {
     s"scala-js-linker-cacher"
   }
 
-  def linkerEngineId( options : Options ) : String = {
-    s"scala-js-linker-engine@${options.toString}"
+  def linkerEngineId( options : Options, closureCache : Option[ Closure.Settings ] = None ) : String = {
+    s"scala-js-linker-engine@${options.toString}@${closureCache.toString}"
   }
 
   def newCacher() = {
     Cacher()
   }
 
-  def newEngine( options : Options ) : Engine = {
-    val linker = new ClearableLinker( () => newLinker( options ), options.batchMode )
+  def newEngine( options : Options, closureCache : Option[ Closure.Settings ] = None ) : Engine = {
+    val linker = new ClearableLinker( () => newLinker( options, closureCache ), options.batchMode )
     Engine( linker )
   }
 
@@ -177,8 +307,16 @@ object Linker {
       .withClosureCompilerIfAvailable( closureCompiler )
   }
 
-  def newLinker( options : Options ) : GenLinker = {
-    StandardLinker( newConfig( options ) )
+  /**
+   * Closure compiler output is cached when cache settings are provided.
+   */
+  def newLinker( options : Options, closureCache : Option[ Closure.Settings ] = None ) : GenLinker = {
+    closureCache match {
+      case Some( settings ) if options.closureCompiler =>
+        Closure.CacheLinker( newConfig( options ), options.toString, settings )
+      case _ =>
+        StandardLinker( newConfig( options ) )
+    }
   }
 
 }
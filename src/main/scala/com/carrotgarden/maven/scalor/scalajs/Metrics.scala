@@ -0,0 +1,227 @@
+package com.carrotgarden.maven.scalor.scalajs
+
+import java.io.File
+
+import scala.collection.concurrent.TrieMap
+import scala.collection.mutable
+import scala.util.Try
+
+import org.scalajs.core.tools.logging.Level
+import org.scalajs.core.tools.logging.Logger
+
+import com.carrotgarden.maven.scalor.util.Folder._
+
+/**
+ * Scala.js linker timing and cache metrics report.
+ */
+object Metrics {
+
+  /**
+   * Metrics report locations.
+   *
+   * @param report - project report file, one entry per runtime
+   * @param summary - build summary file, one entry per runtime of every project linked in the build session
+   * @param project - project identity
+   * @param session - build session identity
+   */
+  case class Settings(
+    report :  File,
+    summary : File,
+    project : String,
+    session : String
+  )
+
+  /**
+   * Linker input usage of a single invocation.
+   *
+   * @param dirsFiles - IR files from class path folders
+   * @param dirsChanged - IR files changed or deleted in class path folders, per incremental update result
+   * @param jarsFiles - IR files from class path jars
+   * @param jarsExtracted - jars read by cacher
+   * @param jarsReused - jars served from cacher
+   */
+  case class Usage(
+    dirsFiles :     Int,
+    dirsChanged :   Int,
+    jarsFiles :     Int,
+    jarsExtracted : Long,
+    jarsReused :    Long
+  )
+
+  /**
+   * Linker phase wall time, summed over repeated phase invocations.
+   */
+  case class Phase(
+    name :  String,
+    time :  Long,
+    count : Int
+  )
+
+  /**
+   * Metrics of a single linker invocation, times in milliseconds, sizes in bytes.
+   */
+  case class Report(
+    project :        String,
+    runtime :        String,
+    startTime :      Long,
+    totalTime :      Long,
+    cacherDirsTime : Long,
+    cacherJarsTime : Long,
+    frontendTime :   Long,
+    optimizerTime :  Long,
+    emitterTime :    Long,
+    usage :          Usage,
+    outputSize :     Long,
+    phaseList :      Seq[ Phase ]
+  ) {
+
+    def summary = {
+      s"runtime=${new File( runtime ).getName} total=${totalTime}ms " +
+        s"dirs=${cacherDirsTime}ms jars=${cacherJarsTime}ms frontend=${frontendTime}ms " +
+        s"optimizer=${optimizerTime}ms emitter=${emitterTime}ms " +
+        s"dirs/changed=${usage.dirsFiles}/${usage.dirsChanged} " +
+        s"jars/extracted=${usage.jarsExtracted + usage.jarsReused}/${usage.jarsExtracted} " +
+        s"output=${outputSize}"
+    }
+
+  }
+
+  /**
+   * Build summary: all invocations with totals.
+   */
+  case class Summary(
+    totalTime :     Long,
+    frontendTime :  Long,
+    optimizerTime : Long,
+    emitterTime :   Long,
+    outputSize :    Long,
+    reportList :    Seq[ Report ]
+  )
+
+  def millisFrom( nanos : Long ) : Long = nanos / 1000000
+
+  /**
+   * Phase titles reported by linker time blocks.
+   */
+  val cacherDirsTitle = "Cacher: Process dirs"
+  val cacherJarsTitle = "Cacher: Process jars"
+  val optimizerTitle = "Inc. optimizer"
+
+  def hasFrontend( title : String ) = title.startsWith( "Linker:" ) || title.startsWith( "Refiner:" )
+
+  def hasEmitter( title : String ) = title.startsWith( "Emitter" ) || title.startsWith( "Closure" )
+
+  /**
+   * Collect linker time blocks while delegating logging.
+   */
+  class Collector( logger : Logger ) extends Logger {
+
+    val startTime = System.currentTimeMillis
+    val startNanos = System.nanoTime
+
+    val phaseTime = mutable.LinkedHashMap[ String, Long ]()
+    val phaseCount = mutable.Map[ String, Int ]()
+
+    override def log( level : Level, message : => String ) : Unit = {
+      logger.log( level, message )
+    }
+
+    override def success( message : => String ) : Unit = {
+      logger.success( message )
+    }
+
+    override def trace( error : => Throwable ) : Unit = {
+      logger.trace( error )
+    }
+
+    override def time( title : String, nanos : Long ) : Unit = {
+      synchronized {
+        phaseTime( title ) = phaseTime.getOrElse( title, 0L ) + nanos
+        phaseCount( title ) = phaseCount.getOrElse( title, 0 ) + 1
+      }
+      logger.time( title, nanos )
+    }
+
+    def report( settings : Settings, runtime : File, usage : Usage ) : Report = synchronized {
+      val phaseList = phaseTime.toSeq.map {
+        case ( name, nanos ) => Phase( name, millisFrom( nanos ), phaseCount.getOrElse( name, 0 ) )
+      }
+      def timeOf( accept : String => Boolean ) = phaseList.filter( phase => accept( phase.name ) ).map( _.time ).sum
+      Report(
+        project        = settings.project,
+        runtime        = runtime.getAbsolutePath,
+        startTime      = startTime,
+        totalTime      = millisFrom( System.nanoTime - startNanos ),
+        cacherDirsTime = timeOf( _ == cacherDirsTitle ),
+        cacherJarsTime = timeOf( _ == cacherJarsTitle ),
+        frontendTime   = timeOf( hasFrontend ),
+        optimizerTime  = timeOf( _ == optimizerTitle ),
+        emitterTime    = timeOf( hasEmitter ),
+        usage          = usage,
+        outputSize     = runtime.length,
+        phaseList      = phaseList
+      )
+    }
+
+  }
+
+  /**
+   * Invocations linked in the current build session, keyed by runtime path.
+   */
+  val summaryMap = TrieMap[ String, Report ]()
+
+  /**
+   * Build session of the summary, summary is reset by a new session.
+   */
+  @volatile var summarySession = ""
+
+  def summary : Summary = {
+    val reportList = summaryMap.values.toSeq.sortBy( _.startTime )
+    Summary(
+      totalTime     = reportList.map( _.totalTime ).sum,
+      frontendTime  = reportList.map( _.frontendTime ).sum,
+      optimizerTime = reportList.map( _.optimizerTime ).sum,
+      emitterTime   = reportList.map( _.emitterTime ).sum,
+      outputSize    = reportList.map( _.outputSize ).sum,
+      reportList    = reportList
+    )
+  }
+
+  /**
+   * Persisted report format.
+   */
+  object Codec {
+    import upickle._
+    import upickle.default._
+    implicit def usageCodec : ReadWriter[ Usage ] = macroRW
+    implicit def phaseCodec : ReadWriter[ Phase ] = macroRW
+    implicit def reportCodec : ReadWriter[ Report ] = macroRW
+    implicit def summaryCodec : ReadWriter[ Summary ] = macroRW
+    def parse( text : String ) : Seq[ Report ] = read[ Seq[ Report ] ]( text )
+    def unparse( reportList : Seq[ Report ] ) : String = write( reportList, indent = 2 )
+    def parseSummary( text : String ) : Summary = read[ Summary ]( text )
+    def unparseSummary( summary : Summary ) : String = write( summary, indent = 2 )
+  }
+
+  /**
+   * Replace runtime entry in the project report file, update build summary file.
+   */
+  def persist( settings : Settings, report : Report ) : Unit = synchronized {
+    val reportPast = if ( settings.report.isFile ) {
+      Try( Codec.parse( loadString( settings.report ) ) ).getOrElse( Seq.empty[ Report ] )
+    } else {
+      Seq.empty[ Report ]
+    }
+    val reportNext = reportPast.filterNot( _.runtime == report.runtime ) :+ report
+    ensureParent( settings.report )
+    persistString( settings.report, Codec.unparse( reportNext ) )
+    if ( summarySession != settings.session ) {
+      summarySession = settings.session
+      summaryMap.clear()
+    }
+    summaryMap.put( report.runtime, report )
+    ensureParent( settings.summary )
+    persistString( settings.summary, Codec.unparseSummary( summary ) )
+  }
+
+}
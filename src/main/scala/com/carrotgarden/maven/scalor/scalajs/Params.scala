@@ -1,5 +1,7 @@
 package com.carrotgarden.maven.scalor.scalajs
 
+import java.io.File
+
 import org.apache.maven.plugins.annotations.Parameter
 
 import com.carrotgarden.maven.scalor.base
@@ -7,6 +9,8 @@ import com.carrotgarden.maven.tools.Description
 
 trait ParamsLinkAny extends AnyRef
   with ParamsRegex
+  with ParamsCache
+  with ParamsEngine
   with ParamsLogging
   with ParamsLibrary
   with ParamsOptsAny
@@ -152,6 +156,189 @@ trait ParamsLibrary {
 
 }
 
+trait ParamsCache {
+
+  @Description( """
+  Maximum size, in megabytes, of <code>*.sjsir</code> content extracted from class path jars
+  and retained by linker cacher between invocations in the same JVM, such as in Eclipse/M2E.
+  Least recently used jars are evicted above the limit.
+  Use <code>0</code> to disable jar retention.
+  """ )
+  @Parameter(
+    property     = "scalor.linkerCacheJarLimit",
+    defaultValue = "256"
+  )
+  var linkerCacheJarLimit : Int = _
+
+  @Description( """
+  Enable content hash in linker cacher jar identity, in addition to jar path, size and modification time.
+  Use when jars are rebuilt at the same path without size or time stamp change.
+  """ )
+  @Parameter(
+    property     = "scalor.linkerCacheJarHash",
+    defaultValue = "false"
+  )
+  var linkerCacheJarHash : Boolean = _
+
+  @Description( """
+  Enable lazy extraction of <code>*.sjsir</code> content from class path jars.
+  Only jar central directory is read up front, IR content is read from jar
+  when linker requests it, and is not retained by linker cacher.
+  When disabled, jar IR content is extracted eagerly.
+  In both cases jars are retained within <a href="#linkerCacheJarLimit"><b>linkerCacheJarLimit</b></a>,
+  lazy jars are weighed by original size of their IR entries.
+  """ )
+  @Parameter(
+    property     = "scalor.linkerCacheJarLazy",
+    defaultValue = "true"
+  )
+  var linkerCacheJarLazy : Boolean = _
+
+  @Description( """
+  Enable persistent index of <code>*.sjsir</code> entries in class path jars.
+  Indexed jars are not re-scanned by subsequent builds while jar size and time stamp are unchanged.
+  Applies to lazy extraction: <a href="#linkerCacheJarLazy"><b>linkerCacheJarLazy</b></a>.
+  Index file: <a href="#linkerCacheIndexFile"><b>linkerCacheIndexFile</b></a>.
+  """ )
+  @Parameter(
+    property     = "scalor.linkerCacheIndexEnable",
+    defaultValue = "true"
+  )
+  var linkerCacheIndexEnable : Boolean = _
+
+  @Description( """
+  Location of persistent index of <code>*.sjsir</code> entries in class path jars.
+  Index is shared by all projects and branches which use the same location.
+  Enable parameter: <a href="#linkerCacheIndexEnable"><b>linkerCacheIndexEnable</b></a>.
+  """ )
+  @Parameter(
+    property     = "scalor.linkerCacheIndexFile",
+    defaultValue = "${settings.localRepository}/.scalor/scala-js-ir-index.bin"
+  )
+  var linkerCacheIndexFile : File = _
+
+  @Description( """
+  Enable persistent cache of Google Closure compiler output, used when linker options
+  enable <code>closureCompiler</code>, such as for <code>runtime.min.js</code>.
+  Cache entry is keyed by content of JavaScript emitted before Closure and by linker options,
+  so unchanged modules skip Closure optimization on rebuild and on branch switch.
+  Cache folder: <a href="#linkerClosureCacheFolder"><b>linkerClosureCacheFolder</b></a>.
+  """ )
+  @Parameter(
+    property     = "scalor.linkerClosureCacheEnable",
+    defaultValue = "true"
+  )
+  var linkerClosureCacheEnable : Boolean = _
+
+  @Description( """
+  Location of persistent cache of Google Closure compiler output.
+  Cache is shared by all projects and branches which use the same location.
+  Enable parameter: <a href="#linkerClosureCacheEnable"><b>linkerClosureCacheEnable</b></a>.
+  """ )
+  @Parameter(
+    property     = "scalor.linkerClosureCacheFolder",
+    defaultValue = "${settings.localRepository}/.scalor/scala-js-closure"
+  )
+  var linkerClosureCacheFolder : File = _
+
+  @Description( """
+  Maximum size, in megabytes, of persistent cache of Google Closure compiler output.
+  Least recently used entries are evicted above the limit.
+  """ )
+  @Parameter(
+    property     = "scalor.linkerClosureCacheLimit",
+    defaultValue = "512"
+  )
+  var linkerClosureCacheLimit : Int = _
+
+}
+
+trait ParamsEngine {
+
+  @Description( """
+  Enable concurrent linking of <code>runtime.js</code> and <code>runtime.min.js</code>,
+  when both are produced by the same execution.
+  Both linker runs share class path cacher, and use separate linker engines.
+  Runtime which completes first is available without waiting for the other one.
+  """ )
+  @Parameter(
+    property     = "scalor.linkerConcurrentEnable",
+    defaultValue = "false"
+  )
+  var linkerConcurrentEnable : Boolean = _
+
+  @Description( """
+  Enable JVM-wide pool of linker engines, shared by all projects in the reactor.
+  Engines with the same linker options re-use linker caches for common dependency jars.
+  When disabled, each project keeps own engines in its build context.
+  In Eclipse/M2E, pool is used only with <a href="#linkerEnginePoolEclipse"><b>linkerEnginePoolEclipse</b></a>.
+  Pool limits: <a href="#linkerEnginePoolLimit"><b>linkerEnginePoolLimit</b></a>,
+  <a href="#linkerEnginePoolMemory"><b>linkerEnginePoolMemory</b></a>.
+  """ )
+  @Parameter(
+    property     = "scalor.linkerEnginePoolEnable",
+    defaultValue = "true"
+  )
+  var linkerEnginePoolEnable : Boolean = _
+
+  @Description( """
+  Enable JVM-wide pool of linker engines also in Eclipse/M2E.
+  Pool retains one idle engine per linker options, so projects with the same options
+  share a single incremental engine; by default, each Eclipse project keeps own engine
+  in its build context instead.
+  """ )
+  @Parameter(
+    property     = "scalor.linkerEnginePoolEclipse",
+    defaultValue = "false"
+  )
+  var linkerEnginePoolEclipse : Boolean = _
+
+  @Description( """
+  Maximum number of idle linker engines retained by the JVM-wide pool.
+  Least recently used engines are evicted above the limit.
+  Limit is JVM-wide and is applied once, by the first execution in the JVM.
+  """ )
+  @Parameter(
+    property     = "scalor.linkerEnginePoolLimit",
+    defaultValue = "4"
+  )
+  var linkerEnginePoolLimit : Int = _
+
+  @Description( """
+  Heap usage after garbage collection, in percent of maximum heap,
+  above which idle linker engines are evicted from the JVM-wide pool, one engine per link.
+  Limit is JVM-wide and is applied once, by the first execution in the JVM.
+  """ )
+  @Parameter(
+    property     = "scalor.linkerEnginePoolMemory",
+    defaultValue = "75"
+  )
+  var linkerEnginePoolMemory : Int = _
+
+  @Description( """
+  Enable skipping of linker invocation in full build when linker inputs did not change:
+  <code>*.sjsir</code> class path stamps, linker options, module initializers and runtime location.
+  Existing runtime is kept when its fingerprint matches.
+  Fingerprints are stored in <a href="#linkerFingerprintFolder"><b>linkerFingerprintFolder</b></a>.
+  """ )
+  @Parameter(
+    property     = "scalor.linkerFingerprintEnable",
+    defaultValue = "true"
+  )
+  var linkerFingerprintEnable : Boolean = _
+
+  @Description( """
+  Folder with linker fingerprint files, one file per generated runtime.
+  Enable parameter: <a href="#linkerFingerprintEnable"><b>linkerFingerprintEnable</b></a>.
+  """ )
+  @Parameter(
+    property     = "scalor.linkerFingerprintFolder",
+    defaultValue = "${project.build.directory}/scalor/cache/scala-js"
+  )
+  var linkerFingerprintFolder : File = _
+
+}
+
 trait ParamsLogging {
 
   @Description( """
@@ -204,6 +391,41 @@ trait ParamsLogging {
   )
   var linkerLogUpdateResult : Boolean = _
 
+  @Description( """
+  Enable reporting of Scala.js linker timing and cache metrics:
+  cacher dirs and jars processing time, linker frontend, optimizer and emitter time,
+  changed versus total <code>*.sjsir</code> files, extracted versus reused jars, output size.
+  Logs summary line per linker invocation.
+  Project report: <a href="#linkerMetricsReport"><b>linkerMetricsReport</b></a>,
+  build summary: <a href="#linkerMetricsSummary"><b>linkerMetricsSummary</b></a>.
+  """ )
+  @Parameter(
+    property     = "scalor.linkerLogMetrics",
+    defaultValue = "false"
+  )
+  var linkerLogMetrics : Boolean = _
+
+  @Description( """
+  Report Scala.js linker timing and cache metrics to the report file, in JSON format, one entry per runtime.
+  Enablement parameter: <a href="#linkerLogMetrics"><b>linkerLogMetrics</b></a>
+  """ )
+  @Parameter(
+    property     = "scalor.linkerMetricsReport",
+    defaultValue = "${project.build.directory}/scalor/scala-js-metrics-report.json"
+  )
+  var linkerMetricsReport : File = _
+
+  @Description( """
+  Summary of Scala.js linker timing and cache metrics of all projects in the reactor build, in JSON format,
+  with totals and one entry per runtime, updated after each linker invocation.
+  Enablement parameter: <a href="#linkerLogMetrics"><b>linkerLogMetrics</b></a>
+  """ )
+  @Parameter(
+    property     = "scalor.linkerMetricsSummary",
+    defaultValue = "${session.executionRootDirectory}/target/scalor/scala-js-metrics-summary.json"
+  )
+  var linkerMetricsSummary : File = _
+
 }
 
 /**
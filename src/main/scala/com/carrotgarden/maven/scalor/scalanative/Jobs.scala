@@ -0,0 +1,156 @@
+package com.carrotgarden.maven.scalor.scalanative
+
+import java.io.File
+import java.util.concurrent.CancellationException
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.PriorityBlockingQueue
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.ThreadPoolExecutor
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicReference
+
+import scala.collection.JavaConverters._
+import scala.concurrent.Await
+import scala.concurrent.Promise
+import scala.concurrent.duration.Duration
+import scala.util.Try
+
+/**
+ * JVM-wide bounded scheduler of external process jobs, such as clang and objcopy,
+ * shared by all projects in the reactor, including parallel module builds.
+ *
+ * Scheduler runs at most the configured number of jobs at once,
+ * and prefers larger input files, since these take longest to compile.
+ */
+object Jobs {
+
+  /**
+   * Job duration for an input file.
+   */
+  case class Timing(
+    path :  String,
+    size :  Long,
+    nanos : Long
+  )
+
+  /**
+   * Scheduler task ordered by input size, largest first, then by submission order.
+   */
+  class Task(
+    val size :  Long,
+    val order : Long,
+    body :      () => Unit
+  ) extends Runnable with Comparable[ Task ] {
+    override def run() : Unit = body()
+    override def compareTo( that : Task ) : Int = {
+      val result = java.lang.Long.compare( that.size, this.size )
+      if ( result != 0 ) result else java.lang.Long.compare( this.order, that.order )
+    }
+  }
+
+  def defaultLimit = Runtime.getRuntime.availableProcessors
+
+  private val sequence = new AtomicLong()
+
+  private val threadCount = new AtomicLong()
+
+  private val threadFactory = new ThreadFactory {
+    override def newThread( runnable : Runnable ) : Thread = {
+      val thread = new Thread( runnable, s"scalor-jobs-${threadCount.incrementAndGet}" )
+      thread.setDaemon( true )
+      thread
+    }
+  }
+
+  private lazy val executor = {
+    val count = defaultLimit
+    val executor = new ThreadPoolExecutor(
+      count, count, 60, TimeUnit.SECONDS,
+      new PriorityBlockingQueue[ Runnable ](), threadFactory
+    )
+    executor.allowCoreThreadTimeOut( true )
+    executor
+  }
+
+  /**
+   * Maximum number of concurrent jobs, across all projects.
+   */
+  def limit : Int = executor.getMaximumPoolSize
+
+  private val hasLimit = new AtomicBoolean()
+
+  /**
+   * Apply job limit once per JVM: first configuring execution wins,
+   * so that projects of the same reactor do not override each other's limit.
+   */
+  def configure( limit : Int ) : Unit = {
+    if ( hasLimit.compareAndSet( false, true ) ) {
+      resize( limit )
+    }
+  }
+
+  /**
+   * Change maximum number of concurrent jobs, use processor count for non-positive limit.
+   */
+  def resize( limit : Int ) : Unit = synchronized {
+    val count = if ( limit > 0 ) limit else defaultLimit
+    if ( count > executor.getMaximumPoolSize ) {
+      executor.setMaximumPoolSize( count )
+      executor.setCorePoolSize( count )
+    } else if ( count < executor.getMaximumPoolSize ) {
+      executor.setCorePoolSize( count )
+      executor.setMaximumPoolSize( count )
+    }
+  }
+
+  /**
+   * Invoke job for each input file on the shared scheduler, largest files first.
+   * Produces job results in input order, with per-file job duration.
+   * Fails with the first failed job, in completion order,
+   * jobs of the same invocation which are not yet started are cancelled.
+   */
+  def invoke[ T ]( fileList : Seq[ File ] )( job : File => T ) : Seq[ ( T, Timing ) ] = {
+    val failure = new AtomicReference[ Throwable ]()
+    val entryList = fileList.map { file =>
+      ( file, file.length, Promise[ ( T, Timing ) ]() )
+    }
+    val taskList = new ConcurrentLinkedQueue[ ( Task, Promise[ ( T, Timing ) ] ) ]()
+    def cancel() : Unit = taskList.asScala.foreach {
+      case ( task, promise ) =>
+        if ( executor.remove( task ) ) {
+          promise.tryFailure( new CancellationException( "Job cancelled." ) )
+        }
+    }
+    entryList.sortBy( -_._2 ).foreach {
+      case ( file, size, promise ) =>
+        val body : () => Unit = () => {
+          try {
+            if ( failure.get != null ) {
+              throw new CancellationException( s"Job cancelled: ${file}" )
+            }
+            val start = System.nanoTime
+            val result = job( file )
+            promise.success( ( result, Timing( file.getPath, size, System.nanoTime - start ) ) )
+          } catch {
+            case error : CancellationException =>
+              promise.failure( error )
+            case error : Throwable =>
+              failure.compareAndSet( null, error )
+              promise.failure( error )
+              cancel()
+          }
+        }
+        taskList.add( ( new Task( size, sequence.incrementAndGet, body ), promise ) )
+    }
+    taskList.asScala.foreach { case ( task, _ ) => executor.execute( task ) }
+    // Await every job, including cancelled and already running jobs.
+    val resultList = entryList.map {
+      case ( _, _, promise ) => Try( Await.result( promise.future, Duration.Inf ) )
+    }
+    Option( failure.get ).foreach( error => throw error )
+    resultList.map( _.get )
+  }
+
+}
@@ -85,18 +85,21 @@ object Linker {
    * Linker engine configuration.
    */
   case class Params(
-    gcType :           String,
-    entryClass :       String,
-    runtime :          File,
-    workDir :          File,
-    nativeLib :        File,
-    cdataEnable :      Boolean,
-    cdataFolders :     Array[ File ],
-    cdataZipEnable :   Boolean,
-    cdataZipFileName : String,
-    clangEnable :      Boolean,
-    clangFolders :     Array[ File ],
-    classPath :        Array[ File ]
+    gcType :            String,
+    entryClass :        String,
+    runtime :           File,
+    workDir :           File,
+    nativeLib :         File,
+    cdataEnable :       Boolean,
+    cdataFolders :      Array[ File ],
+    cdataZipEnable :    Boolean,
+    cdataZipFileName :  String,
+    clangEnable :       Boolean,
+    clangFolders :      Array[ File ],
+    classPath :         Array[ File ],
+    objectCacheEnable : Boolean,
+    objectCacheFolder : File,
+    objectCacheLimit :  Long
   )
 
   /**
@@ -115,7 +118,9 @@ object Linker {
     logStat :         Boolean               = false,
     logProc :         Boolean               = false,
     logVert :         Boolean               = false,
-    linkStubs :       Boolean               = false
+    logJobs :         Boolean               = false,
+    linkStubs :       Boolean               = false,
+    jobsLimit :       Int                   = 0
   )
 
   /**
@@ -87,6 +87,21 @@ case class Native(
     }
   }
 
+  /**
+   * Invoke external process job for each input file on the shared bounded scheduler,
+   * largest files first, optionally report per-file job durations.
+   */
+  def schedule[ T ]( notice : String, fileList : Seq[ File ] )( job : File => T ) : Seq[ T ] = {
+    Jobs.configure( options.jobsLimit )
+    val resultList = Jobs.invoke( fileList )( job )
+    if ( options.logJobs ) {
+      resultList.map( _._2 ).sortBy( -_.nanos ).foreach { timing =>
+        logger.time( s"${notice}: ${timing.path}", timing.nanos )
+      }
+    }
+    resultList.map( _._1 )
+  }
+
   /**
    * Render shell command for printing.
    */
@@ -120,6 +135,31 @@ case class Native(
     invoke( command )
   }
 
+  /**
+   * Compile source into object file, re-use object from the shared object cache when enabled.
+   * Produces true for object cache hit.
+   */
+  def compileCached( source : File, target : File, opts : Seq[ String ] ) : Boolean = {
+    objectCache match {
+      case Some( settings ) =>
+        val key = Objects.objectKey( source, clangIdentity, opts )
+        if ( Objects.restore( settings, key, target ) ) {
+          true
+        } else {
+          // Keep cached object intact when target is a hard link.
+          Files.deleteIfExists( target.toPath )
+          compile( source.abs, target.abs, opts )
+          Try( Objects.store( settings, key, target ) ).failed.foreach { error =>
+            logger.warn( s"Object cache persist failure: ${settings.folder}: ${error.getMessage}" )
+          }
+          false
+        }
+      case None =>
+        compile( source.abs, target.abs, opts )
+        false
+    }
+  }
+
   /**
    * Convert binary file into linkable object file.
    * note: requires work dir and relative source / target
@@ -140,6 +180,24 @@ case class Native(
     params.workDir + options.mode
   }
 
+  /**
+   * Shared object cache for LLVM IR compilation.
+   */
+  lazy val objectCache : Option[ Objects.Settings ] = {
+    if ( params.objectCacheEnable ) {
+      Some( Objects.Settings( params.objectCacheFolder, params.objectCacheLimit ) )
+    } else {
+      None
+    }
+  }
+
+  /**
+   * LLVM clang identity used in object cache key.
+   */
+  lazy val clangIdentity : String = {
+    Objects.compilerIdentity( discoverClang )
+  }
+
   lazy val buildOutput : File = {
     params.runtime
   }
@@ -373,13 +431,16 @@ case class Native(
     val optimizeOpts = settingsCompile
     val opts = optimizeOpts ++ compileOpts
     measure( "Compiling LL to native O" ) {
-      val objectList = generated.par.map { ll =>
-        val source = ll.abs
-        val target = source + ".o"
-        compile( source, target, opts )
-        new File( target ).getAbsoluteFile
-      }.seq.toSeq
-      report( s"produced ${objectList.size} objects" )
+      val resultList = schedule( "clang", generated ) { ll =>
+        val source = ll.getAbsoluteFile
+        val target = new File( source.getPath + ".o" )
+        val hasHit = compileCached( source, target, opts )
+        ( target, hasHit )
+      }
+      objectCache.foreach( Objects.ensureLimit )
+      val objectList = resultList.map( _._1 )
+      val cachedCount = resultList.count( _._2 )
+      report( s"produced ${objectList.size} objects, ${cachedCount} from object cache" )
       objectList
     }
   }
@@ -443,12 +504,12 @@ case class Native(
     val optimizeOpts = settingsCompile
     val opts = optimizeOpts ++ compileOpts
     measure( "Compiling project C lang to native O" ) {
-      val objectList = provided.par.map { cc =>
+      val objectList = schedule( "clang", provided ) { cc =>
         val source = cc.abs
         val target = source + ".o"
         compile( source, target, opts )
         new File( target ).getAbsoluteFile
-      }.seq.toSeq
+      }
       report( s"produced ${objectList.size} objects in folder ${projectBuildDirClang}" )
       objectList
     }
@@ -467,13 +528,13 @@ case class Native(
     val objType = convertTripletObjCopy( triplet, options.mapsObjCopy )
     measure( "Converting project C data to native O" ) {
       report( s"mapping: triplet=${triplet} -> objType=${objType}" )
-      val objectList = provided.par.map { dd =>
+      val objectList = schedule( "objcopy", provided ) { dd =>
         val base = dataPath.relativize( dd.toPath ).toString
         val source = base
         val target = base + ".o"
         objcopy( dataDir, source, target, objType, options.optsObjCopy )
         new File( dataDir, target ).getAbsoluteFile
-      }.seq.toSeq
+      }
       report( s"produced ${objectList.size} objects in folder ${projectBuildDirCdata}" )
       objectList
     }
@@ -556,7 +617,7 @@ case class Native(
       }
 
       // delete .o files for all excluded source files
-      sourceList.par.foreach { entry =>
+      sourceList.foreach { entry =>
         val source = entry.abs
         if ( !hasInclude( source ) ) {
           val target = file( source + ".o" )
@@ -567,12 +628,14 @@ case class Native(
       }
 
       // generate .o files for all included source files
-      sourceList.par.foreach { entry =>
+      val compileList = sourceList.filter { entry =>
+        val source = entry.abs
+        hasInclude( source ) && !file( source + ".o" ).exists
+      }
+      schedule( "clang", compileList ) { entry =>
         val source = entry.abs
         val target = source + ".o"
-        if ( hasInclude( source ) && !file( target ).exists ) {
-          compile( source, target, compileOpts )
-        }
+        compile( source, target, compileOpts )
       }
 
       report( s"compiled ${sourceList.size} sources" )
@@ -0,0 +1,136 @@
+package com.carrotgarden.maven.scalor.scalanative
+
+import java.io.File
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.security.DigestInputStream
+import java.security.MessageDigest
+
+import scala.collection.concurrent.TrieMap
+import scala.sys.process.Process
+import scala.sys.process.ProcessLogger
+import scala.util.Try
+
+import com.carrotgarden.maven.scalor.util.Folder
+import com.carrotgarden.maven.scalor.util.Text
+
+/**
+ * Content-addressed cache of native object files, in the style of ccache.
+ *
+ * Object is keyed by compiled source content, compiler identity and compile options.
+ * Cache folder is shared by all projects and branches which use the same location.
+ * Cached objects are hard linked into build folder, or copied when linking is not possible.
+ */
+object Objects {
+
+  /**
+   * Object cache location and size limit, bytes.
+   */
+  case class Settings(
+    folder : File,
+    limit :  Long
+  )
+
+  val objectSuffix = ".o"
+
+  /**
+   * Compiler binary identity: location, size and time stamp.
+   */
+  def binaryIdentity( binary : File ) : String = {
+    s"${binary.getAbsolutePath}@${binary.length}@${binary.lastModified}"
+  }
+
+  /**
+   * Compiler version report, keyed by compiler binary identity.
+   */
+  val versionMap = TrieMap[ String, String ]()
+
+  /**
+   * Compiler identity: binary identity and <code>--version</code> report,
+   * since compiler binary can be a wrapper or a symbolic link to a versioned binary.
+   * Version report is produced once per binary identity in the JVM.
+   */
+  def compilerIdentity( binary : File ) : String = {
+    val identity = binaryIdentity( binary )
+    val version = versionMap.getOrElseUpdate( identity, {
+      val command = Seq( binary.getAbsolutePath, "--version" )
+      Try( Process( command ).!!( ProcessLogger( _ => () ) ).trim ).getOrElse( "" )
+    } )
+    s"${identity}@${version}"
+  }
+
+  /**
+   * Cache key: source content, compiler identity and compile options.
+   */
+  def objectKey( source : File, identity : String, options : Seq[ String ] ) : String = {
+    val digest = MessageDigest.getInstance( "MD5" )
+    def update( text : String ) : Unit = {
+      digest.update( text.getBytes( StandardCharsets.UTF_8 ) )
+      digest.update( 0.toByte )
+    }
+    update( identity )
+    options.foreach( update )
+    update( source.getName.substring( source.getName.lastIndexOf( '.' ) + 1 ) )
+    val input = new DigestInputStream( Files.newInputStream( source.toPath ), digest )
+    try {
+      val buffer = new Array[ Byte ]( 64 * 1024 )
+      while ( input.read( buffer ) >= 0 ) {}
+    } finally {
+      input.close()
+    }
+    Text.renderHex( digest.digest )
+  }
+
+  def objectFile( settings : Settings, key : String ) : File = {
+    new File( settings.folder, key + objectSuffix )
+  }
+
+  /**
+   * Provide cached object at target location, refresh entry usage time.
+   */
+  def restore( settings : Settings, key : String, target : File ) : Boolean = {
+    val cached = objectFile( settings, key )
+    if ( !cached.isFile ) {
+      return false
+    }
+    Try {
+      Files.deleteIfExists( target.toPath )
+      Try( Files.createLink( target.toPath, cached.toPath ) ).getOrElse {
+        Files.copy( cached.toPath, target.toPath, StandardCopyOption.REPLACE_EXISTING )
+      }
+      cached.setLastModified( System.currentTimeMillis )
+      true
+    }.getOrElse( false )
+  }
+
+  /**
+   * Persist compiled object into cache.
+   */
+  def store( settings : Settings, key : String, target : File ) : Unit = {
+    Folder.ensureFolder( settings.folder )
+    val cached = objectFile( settings, key )
+    val temp = File.createTempFile( cached.getName + ".", ".tmp", settings.folder )
+    try {
+      Files.copy( target.toPath, temp.toPath, StandardCopyOption.REPLACE_EXISTING )
+      Files.move( temp.toPath, cached.toPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE )
+    } finally {
+      Files.deleteIfExists( temp.toPath )
+    }
+  }
+
+  /**
+   * Remove least recently used cached objects above size limit.
+   */
+  def ensureLimit( settings : Settings ) : Unit = {
+    val fileList = Option( settings.folder.listFiles ).getOrElse( Array.empty[ File ] )
+      .filter( file => file.isFile && file.getName.endsWith( objectSuffix ) )
+      .sortBy( _.lastModified )
+    var total = fileList.map( _.length ).sum
+    fileList.iterator.takeWhile( _ => total > settings.limit ).foreach { file =>
+      total -= file.length
+      Files.deleteIfExists( file.toPath )
+    }
+  }
+
+}
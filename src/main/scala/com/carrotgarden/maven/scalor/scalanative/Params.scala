@@ -19,6 +19,8 @@ trait ParamsLinkAny extends AnyRef
   with ParamsLibrary
   with ParamsLogging
   with ParamsOptions
+  with ParamsCache
+  with ParamsJobs
   with ParamsEntryClassMain
   with ParamsGarbageCollectorAny {
 
@@ -151,6 +153,62 @@ trait ParamsOptions extends AnyRef
 
 }
 
+trait ParamsCache {
+
+  @Description( """
+  Enable shared cache of native objects compiled from generated LLVM <code>*.ll</code> modules.
+  Object is keyed by module content, LLVM <code>clang</code> binary identity and compile options,
+  so unchanged modules skip <code>clang</code> compilation on rebuild and on branch switch.
+  Cache folder: <a href="#nativeObjectCacheFolder"><b>nativeObjectCacheFolder</b></a>.
+  """ )
+  @Parameter(
+    property     = "scalor.nativeObjectCacheEnable",
+    defaultValue = "true"
+  )
+  var nativeObjectCacheEnable : Boolean = _
+
+  @Description( """
+  Location of shared cache of native objects.
+  Cache is shared by all projects and branches which use the same location.
+  Cached objects are hard linked into build folder, or copied when hard link is not supported.
+  Enable parameter: <a href="#nativeObjectCacheEnable"><b>nativeObjectCacheEnable</b></a>.
+  """ )
+  @Parameter(
+    property     = "scalor.nativeObjectCacheFolder",
+    defaultValue = "${settings.localRepository}/.scalor/scala-native-objects"
+  )
+  var nativeObjectCacheFolder : File = _
+
+  @Description( """
+  Maximum size, in megabytes, of shared cache of native objects.
+  Least recently used objects are evicted above the limit.
+  """ )
+  @Parameter(
+    property     = "scalor.nativeObjectCacheLimit",
+    defaultValue = "1024"
+  )
+  var nativeObjectCacheLimit : Int = _
+
+}
+
+trait ParamsJobs {
+
+  @Description( """
+  Maximum number of concurrent external compile and objcopy jobs,
+  such as LLVM <code>clang</code> and GCC <code>objcopy</code>.
+  Limit is global: shared by all projects in the reactor, including parallel builds with <code>mvn -T</code>,
+  and is applied once, by the first execution in the JVM.
+  Larger input files are scheduled first.
+  Use <code>0</code> for the number of available processors.
+  """ )
+  @Parameter(
+    property     = "scalor.nativeJobsLimit",
+    defaultValue = "0"
+  )
+  var nativeJobsLimit : Int = _
+
+}
+
 trait ParamsLogging {
 
   @Description( """
@@ -223,6 +281,17 @@ trait ParamsLogging {
   )
   var nativeLogBuildVerts : Boolean = _
 
+  @Description( """
+  Enable logging of Scala.native per-file durations of external compile and objcopy jobs,
+  longest first.
+  Use to review which modules dominate native compilation time.
+  """ )
+  @Parameter(
+    property     = "scalor.nativeLogBuildJobs",
+    defaultValue = "false"
+  )
+  var nativeLogBuildJobs : Boolean = _
+
   @Description( """
   Enable logging of Scala.native linker update result of M2E incremental change detection.
   Use to review actual <code>*.nir</code> classes which triggered Eclipse linker build.
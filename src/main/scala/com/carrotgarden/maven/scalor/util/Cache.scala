@@ -0,0 +1,193 @@
+package com.carrotgarden.maven.scalor.util
+
+import java.util.LinkedHashMap
+import java.util.HashMap
+import java.util.Map.Entry
+
+import scala.concurrent.Await
+import scala.concurrent.Promise
+import scala.concurrent.duration.Duration
+
+/**
+ * Bounded thread-safe cache with least-recently-used eviction.
+ *
+ * @param limit - maximum total weight of retained entries, non-positive disables retention
+ * @param evict - invoked for every entry removed from the cache
+ * @param weigh - entry weight, by default each entry weighs one, so limit is entry count
+ */
+class Cache[ K, V ](
+  @volatile var limit : Long,
+  evict :               ( K, V ) => Unit = ( key : K, value : V ) => (),
+  weigh :               V => Long        = ( value : V ) => 1L
+) {
+
+  import Cache._
+
+  private val entryMap = new LinkedHashMap[ K, V ]( 16, 0.75f, true )
+
+  private val pendingMap = new HashMap[ K, Promise[ V ] ]()
+
+  @volatile private var hitCount = 0L
+  @volatile private var missCount = 0L
+  @volatile private var evictCount = 0L
+
+  @volatile private var weightTotal = 0L
+
+  /**
+   * Provide cached value, create and retain when missing.
+   * Value is created outside the cache lock, once per key:
+   * concurrent requests for the same key await the first creation.
+   */
+  def apply( key : K )( provide : => V ) : V = {
+    val ( promise, owner ) = synchronized {
+      val past = entryMap.get( key )
+      val pending = pendingMap.get( key )
+      if ( past != null ) {
+        hitCount += 1
+        ( Promise.successful( past ), false )
+      } else if ( pending != null ) {
+        hitCount += 1
+        ( pending, false )
+      } else {
+        missCount += 1
+        val pending = Promise[ V ]()
+        pendingMap.put( key, pending )
+        ( pending, true )
+      }
+    }
+    if ( owner ) {
+      val next = try {
+        provide
+      } catch {
+        case error : Throwable =>
+          synchronized { pendingMap.remove( key ) }
+          promise.failure( error )
+          throw error
+      }
+      synchronized {
+        pendingMap.remove( key )
+        if ( limit > 0 ) {
+          entryMap.put( key, next )
+          weightTotal += weigh( next )
+          ensureLimit()
+        }
+      }
+      promise.success( next )
+      next
+    } else {
+      Await.result( promise.future, Duration.Inf )
+    }
+  }
+
+  /**
+   * Extract cached value without creating it.
+   */
+  def get( key : K ) : Option[ V ] = synchronized {
+    Option( entryMap.get( key ) )
+  }
+
+  /**
+   * Replace cached value.
+   */
+  def put( key : K, value : V ) : Unit = synchronized {
+    val past = entryMap.put( key, value )
+    weightTotal += weigh( value )
+    if ( past != null ) {
+      weightTotal -= weigh( past )
+      if ( past != value ) {
+        evictEntry( key, past )
+      }
+    }
+    ensureLimit()
+  }
+
+  /**
+   * Remove cached value.
+   */
+  def remove( key : K ) : Option[ V ] = synchronized {
+    val past = Option( entryMap.remove( key ) )
+    past.foreach { value =>
+      weightTotal -= weigh( value )
+      evictEntry( key, value )
+    }
+    past
+  }
+
+  /**
+   * Change cache size limit, evict entries above the new limit.
+   */
+  def resize( limit : Long ) : Unit = synchronized {
+    this.limit = limit
+    ensureLimit()
+  }
+
+  /**
+   * Remove all cached values.
+   */
+  def clear() : Unit = synchronized {
+    while ( !entryMap.isEmpty ) {
+      evictEldest()
+    }
+  }
+
+  def size : Int = synchronized {
+    entryMap.size
+  }
+
+  /**
+   * Total weight of retained entries.
+   */
+  def weight : Long = synchronized {
+    weightTotal
+  }
+
+  def keys : Seq[ K ] = synchronized {
+    import scala.collection.JavaConverters._
+    entryMap.keySet.asScala.toList
+  }
+
+  def values : Seq[ V ] = synchronized {
+    import scala.collection.JavaConverters._
+    entryMap.values.asScala.toList
+  }
+
+  def stats : Stats = Stats( size, hitCount, missCount, evictCount )
+
+  def report : String = stats.report
+
+  private def ensureLimit() : Unit = {
+    while ( !entryMap.isEmpty && weightTotal > math.max( limit, 0 ) ) {
+      evictEldest()
+    }
+  }
+
+  private def evictEldest() : Unit = {
+    val iter = entryMap.entrySet.iterator
+    val entry : Entry[ K, V ] = iter.next
+    iter.remove()
+    weightTotal -= weigh( entry.getValue )
+    evictEntry( entry.getKey, entry.getValue )
+  }
+
+  private def evictEntry( key : K, value : V ) : Unit = {
+    evictCount += 1
+    evict( key, value )
+  }
+
+}
+
+object Cache {
+
+  /**
+   * Cache usage statistics.
+   */
+  case class Stats(
+    size :  Int,
+    hit :   Long,
+    miss :  Long,
+    evict : Long
+  ) {
+    def report = s"size=${size} hit=${hit} miss=${miss} evict=${evict}"
+  }
+
+}
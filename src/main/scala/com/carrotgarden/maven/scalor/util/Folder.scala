@@ -18,6 +18,13 @@ import scala.language.implicitConversions
 import java.util.regex.Matcher
 import java.nio.charset.StandardCharsets
 import java.util.Comparator
+import java.util.ArrayDeque
+import java.util.EnumSet
+import java.io.IOException
+import java.nio.file.FileVisitOption
+import java.nio.file.FileVisitResult
+import java.nio.file.SimpleFileVisitor
+import java.nio.file.attribute.BasicFileAttributes
 
 /**
  * Operations against base folder.
@@ -129,31 +136,7 @@ object Folder {
   }
 
   def fileListByRegex( rootList : Array[ File ], regex : String ) : Array[ File ] = {
-    val matcher = regex.r.pattern.matcher( "" )
-    val fileList = new ArrayList[ File ]( 256 )
-    var index = 0
-    var limit = rootList.length
-    while ( index < limit ) {
-      val root = rootList( index ); index += 1
-      if ( root.isDirectory ) {
-        fileCollectByRegex( root, matcher, fileList )
-      }
-    }
-    fileList.toArray( Array[ File ]() )
-  }
-
-  def fileCollectByRegex( root : File, matcher : Matcher, fileList : ArrayList[ File ] ) : Unit = {
-    val list = root.listFiles
-    var index = 0
-    var limit = list.length
-    while ( index < limit ) {
-      val file = list( index ); index += 1
-      if ( file.isFile && matcher.reset( file.getCanonicalPath ).matches ) {
-        fileList.add( file )
-      } else if ( file.isDirectory ) {
-        fileCollectByRegex( file, matcher, fileList )
-      }
-    }
+    fileListByRegex( rootList, Some( regex ), None )
   }
 
   def fileHasMatch(
@@ -172,40 +155,86 @@ object Folder {
     fileHasMatch( file.getCanonicalPath, includeOption, excludeOption )
   }
 
+  /**
+   * Collect matching files under a root with NIO tree walk.
+   * Each folder is canonicalized once, matched file path is
+   * composed from canonical folder path and file name,
+   * which is equivalent to file canonical path for regular files.
+   */
   def fileCollectByRegex(
     root :          File,
     includeOption : Option[ Matcher ], excludeOption : Option[ Matcher ],
     fileList : ArrayList[ File ]
   ) : Unit = {
-    val list = root.listFiles
-    var index = 0
-    var limit = list.length
-    while ( index < limit ) {
-      val file = list( index ); index += 1
-      if ( file.isFile && fileHasMatch( file, includeOption, excludeOption ) ) {
-        fileList.add( file )
-      } else if ( file.isDirectory ) {
-        fileCollectByRegex( file, includeOption, excludeOption, fileList )
+    val folderStack = new ArrayDeque[ String ]()
+    val visitor = new SimpleFileVisitor[ Path ] {
+      override def preVisitDirectory( folder : Path, attrs : BasicFileAttributes ) : FileVisitResult = {
+        folderStack.push( folder.toFile.getCanonicalPath + File.separator )
+        FileVisitResult.CONTINUE
+      }
+      override def postVisitDirectory( folder : Path, error : IOException ) : FileVisitResult = {
+        folderStack.pop()
+        FileVisitResult.CONTINUE
+      }
+      override def visitFile( file : Path, attrs : BasicFileAttributes ) : FileVisitResult = {
+        if ( attrs.isRegularFile ) {
+          val path = folderStack.peek + file.getFileName.toString
+          if ( fileHasMatch( path, includeOption, excludeOption ) ) {
+            fileList.add( file.toFile )
+          }
+        }
+        FileVisitResult.CONTINUE
+      }
+      override def visitFileFailed( file : Path, error : IOException ) : FileVisitResult = {
+        FileVisitResult.CONTINUE // Broken link or folder cycle.
+      }
+    }
+    val options = EnumSet.of( FileVisitOption.FOLLOW_LINKS )
+    Files.walkFileTree( root.toPath, options, Integer.MAX_VALUE, visitor )
+  }
+
+  /**
+   * Collect files under a root with NIO tree walk,
+   * matching root-relative path during the walk.
+   */
+  def fileListByRelativeRegex( root : File, matcher : Matcher ) : Array[ File ] = {
+    val rootPath = root.toPath
+    val fileList = new ArrayList[ File ]( 256 )
+    val visitor = new SimpleFileVisitor[ Path ] {
+      override def visitFile( file : Path, attrs : BasicFileAttributes ) : FileVisitResult = {
+        if ( attrs.isRegularFile && matcher.reset( rootPath.relativize( file ).toString ).matches ) {
+          fileList.add( file.toFile.getAbsoluteFile )
+        }
+        FileVisitResult.CONTINUE
       }
+      override def visitFileFailed( file : Path, error : IOException ) : FileVisitResult = {
+        FileVisitResult.CONTINUE // Broken link or folder cycle.
+      }
+    }
+    if ( root.isDirectory ) {
+      val options = EnumSet.of( FileVisitOption.FOLLOW_LINKS )
+      Files.walkFileTree( rootPath, options, Integer.MAX_VALUE, visitor )
     }
+    fileList.toArray( Array[ File ]() )
   }
 
+  /**
+   * Collect matching files under all roots, roots are scanned in parallel.
+   * Result preserves root order.
+   */
   def fileListByRegex(
     rootList :      Array[ File ],
     includeOption : Option[ String ], excludeOption : Option[ String ]
   ) : Array[ File ] = {
-    val matcherInclude = includeOption.map( _.r.pattern.matcher( "" ) )
-    val matcherExclude = excludeOption.map( _.r.pattern.matcher( "" ) )
-    val fileList = new ArrayList[ File ]( 256 )
-    var index = 0
-    var limit = rootList.length
-    while ( index < limit ) {
-      val root = rootList( index ); index += 1
-      if ( root.isDirectory ) {
-        fileCollectByRegex( root, matcherInclude, matcherExclude, fileList )
-      }
+    val resultList = rootList.filter( _.isDirectory ).par.map { root =>
+      // Matchers are not thread safe.
+      val matcherInclude = includeOption.map( _.r.pattern.matcher( "" ) )
+      val matcherExclude = excludeOption.map( _.r.pattern.matcher( "" ) )
+      val fileList = new ArrayList[ File ]( 256 )
+      fileCollectByRegex( root, matcherInclude, matcherExclude, fileList )
+      fileList.toArray( Array[ File ]() )
     }
-    fileList.toArray( Array[ File ]() )
+    resultList.seq.flatten.toArray
   }
 
   //  def findJarByResource( loader : ClassLoader, resource : String ) : Array[ File ] = {
@@ -312,6 +341,15 @@ object Folder {
     Files.write( file.toPath, text.getBytes( charset ) )
   }
 
+  /**
+   */
+  def loadString(
+    file :    File,
+    charset : Charset = StandardCharsets.UTF_8
+  ) : String = {
+    new String( Files.readAllBytes( file.toPath ), charset )
+  }
+
   /**
    * Remove file or folder.
    */
@@ -0,0 +1,94 @@
+package com.carrotgarden.maven.scalor.zinc
+
+import java.io.File
+import java.util.Optional
+
+import scala.collection.JavaConverters._
+
+import sbt.internal.inc.UnderlyingChanges
+import xsbti.compile.CompileAnalysis
+import xsbti.compile.DefaultExternalHooks
+import xsbti.compile.ExternalHooks
+import xsbti.compile.FileHash
+import xsbti.compile.IncOptions
+
+/**
+ * Seed Zinc source change detection with changes already known
+ * to the build integration, i.e. M2E resource deltas or watch cycle snapshots,
+ * so that Zinc does not stamp all sources to discover changes.
+ */
+object Changes {
+
+  /**
+   * Source changes from known changed files.
+   *
+   * Added and removed sources are derived from previous analysis and current source list,
+   * changed sources are current sources reported as changed.
+   *
+   * @param sources - current scope sources, canonical
+   * @param changedSet - files changed since previous successful compilation, canonical
+   */
+  def sourceChanges(
+    previous :   CompileAnalysis,
+    sources :    Array[ File ],
+    changedSet : Set[ File ]
+  ) : UnderlyingChanges[ File ] = {
+    val previousSet = previous.readStamps.getAllSourceStamps.keySet.asScala.toSet
+    val currentSet = sources.toSet
+    val inBoth = previousSet & currentSet
+    val changedNext = inBoth & changedSet
+    new UnderlyingChanges[ File ] {
+      override val added = currentSet -- inBoth
+      override val removed = previousSet -- inBoth
+      override val changed = changedNext
+      override val unmodified = inBoth -- changedNext
+    }
+  }
+
+  /**
+   * External lookup which reports only source changes,
+   * binary and product change detection is left to Zinc.
+   */
+  case class SourceLookup(
+    sources :    Array[ File ],
+    changedSet : Set[ File ]
+  ) extends ExternalHooks.Lookup {
+
+    override def getChangedSources( previous : CompileAnalysis ) = {
+      Optional.of[ xsbti.compile.Changes[ File ] ]( sourceChanges( previous, sources, changedSet ) )
+    }
+
+    override def getChangedBinaries( previous : CompileAnalysis ) = {
+      Optional.empty[ java.util.Set[ File ] ]
+    }
+
+    override def getRemovedProducts( previous : CompileAnalysis ) = {
+      Optional.empty[ java.util.Set[ File ] ]
+    }
+
+    override def shouldDoIncrementalCompilation( changedClasses : java.util.Set[ String ], previous : CompileAnalysis ) = {
+      true
+    }
+
+    override def hashClasspath( classpath : Array[ File ] ) = {
+      Optional.empty[ Array[ FileHash ] ]
+    }
+
+  }
+
+  /**
+   * Incremental compiler options, seeded with known source changes when available.
+   */
+  def incOptions( changedOption : Option[ Set[ File ] ], sources : Array[ File ] ) : IncOptions = {
+    val options = IncOptions.of()
+    changedOption match {
+      case Some( changedSet ) =>
+        val lookup : ExternalHooks.Lookup = SourceLookup( sources, changedSet )
+        val hooks = new DefaultExternalHooks( Optional.of( lookup ), Optional.empty() )
+        options.withExternalHooks( hooks )
+      case None =>
+        options
+    }
+  }
+
+}
@@ -1,9 +1,10 @@
 package com.carrotgarden.maven.scalor.zinc
 
 import java.io.File
-import java.net.URLClassLoader
 import java.util.Optional
 
+import scala.util.Try
+
 import com.carrotgarden.maven.scalor.base
 import com.carrotgarden.maven.scalor.meta
 import com.carrotgarden.maven.scalor.util.Folder._
@@ -11,7 +12,6 @@ import com.carrotgarden.maven.scalor.util.Folder._
 import sbt.internal.inc.AnalyzingCompiler
 import sbt.internal.inc.FileAnalysisStore
 import sbt.internal.inc.IncrementalCompilerImpl
-import sbt.internal.inc.Locate
 import sbt.internal.inc.ScalaInstance
 import sbt.util.InterfaceUtil
 import sbt.util.Level
@@ -20,11 +20,8 @@ import xsbti.compile.AnalysisStore
 import xsbti.compile.ClasspathOptionsUtil
 import xsbti.compile.CompileAnalysis
 import xsbti.compile.CompileOrder
-import xsbti.compile.CompilerCache
-import xsbti.compile.DefinesClass
 import xsbti.compile.IncOptions
 import xsbti.compile.MiniSetup
-import xsbti.compile.PerClasspathEntryLookup
 import xsbti.compile.PreviousResult
 import xsbti.compile.ZincCompilerUtil
 import com.carrotgarden.maven.scalor.util.Error.Throw
@@ -37,7 +34,7 @@ trait CompilerMacro extends Compiler
   with base.BuildMacro
   with ParamsMacro {
 
-  self : Resolve with base.Logging =>
+  self : Resolve with base.Logging with base.Context =>
 
   override def zincBuildCache = zincCacheMacro
 
@@ -50,7 +47,7 @@ trait CompilerMain extends Compiler
   with base.BuildMain
   with ParamsMain {
 
-  self : Resolve with base.Logging =>
+  self : Resolve with base.Logging with base.Context =>
 
   override def zincBuildCache = zincCacheMain
 
@@ -63,7 +60,7 @@ trait CompilerTest extends Compiler
   with base.BuildTest
   with ParamsTest {
 
-  self : Resolve with base.Logging =>
+  self : Resolve with base.Logging with base.Context =>
 
   override def zincBuildCache = zincCacheTest
 
@@ -77,9 +74,10 @@ trait Compiler extends AnyRef
   with base.BuildAnyRegex
   with base.Params
   with base.ParamsDefine
-  with Params {
+  with Params
+  with Server {
 
-  self : Resolve with base.Logging =>
+  self : Resolve with base.Logging with base.Context =>
 
   import Compiler._
 
@@ -123,21 +121,35 @@ trait Compiler extends AnyRef
     }
   }
 
+  /**
+   * Detect Eclipse/M2E build session.
+   */
+  def hasEclipseSession : Boolean = {
+    base.Context.eclipse.isPresent( session ) || base.Context.m2e.isPresent( session )
+  }
+
+  /**
+   * Scala compiler instance cache, retained only for repeated builds in Eclipse/M2E or goal=watch.
+   */
+  def zincCompilerCache : Globals = {
+    Globals.provideCache( zincCompilerCacheLimit, hasEclipseSession || base.Watch.hasActive )
+  }
+
   /**
    * Incremental compiler file analysis store.
    */
   def zincStateStore( cacheFile : File ) : AnalysisStore = {
-    storeType( zincStateStoreType ) match {
-      case Store.Text =>
-        FileAnalysisStore.text( cacheFile )
-      case Store.Binary =>
-        FileAnalysisStore.binary( cacheFile )
-      case _ =>
+    val stateType = storeType( zincStateStoreType ) match {
+      case Store.Unknown =>
         val param = meta.Macro.nameOf( zincStateStoreType )
         val value = zincStateStoreType
         logger.fail( s"Unknown store type ${param}=${value}, using 'binary'." )
-        FileAnalysisStore.binary( cacheFile )
+        Store.Binary
+      case known =>
+        known
     }
+    val writeBehind = hasEclipseSession || base.Watch.hasActive
+    Storage.provideStore( cacheFile, storeFrom( _, stateType ), zincStateCacheLimit, writeBehind, logger )
   }
 
   /**
@@ -168,9 +180,10 @@ trait Compiler extends AnyRef
   //  }
 
   /**
-   * Provide compiler context.
+   * Provide compiler setup from build parameters, without compiler class loaders,
+   * sufficient for remote invocation in the compilation server.
    */
-  case class Context() {
+  class Setup {
 
     // Optional tool chain.
     //    val optionJavaHome = zincToolchainOption
@@ -202,12 +215,6 @@ trait Compiler extends AnyRef
     val compilerPluginList : Array[ File ] =
       compilerInstall.pluginDefineList.map( Module.fileFrom( _ ) ).toArray
 
-    // Provide compiler class loader.
-    val compilerLoader : ClassLoader = {
-      val entryList = compilerClassPath.map( _.toURI.toURL )
-      new URLClassLoader( entryList )
-    }
-
     // Provide compiler options.
     val optionsConfig = Settings.extract(
       compilerInstall.version, parseOptionsScala, logger.fail
@@ -249,9 +256,24 @@ trait Compiler extends AnyRef
     val compileOrder = CompileOrder.valueOf( optionsConfig.compileOrder )
     val maxErrors = optionsConfig.maxErrors
 
+    // Static compiler-bridge jar.
+    val bridgeJar = Module.fileFrom( compilerInstall.bridge )
+
+  }
+
+  /**
+   * Provide compiler context.
+   */
+  case class Context() extends Setup {
+
+    // Provide cached compiler class loaders.
+    val loaderEntry : Loader.Entry =
+      Loader.provideEntry( compilerInstall, zincLoaderCacheLimit, logger )
+    val compilerLoader : ClassLoader =
+      loaderEntry.compilerLoader
+
     // Provide Zinc ScalaC instance.
     val scalaInstance = instanceFrom( compilerLoader, compilerInstall )
-    val bridgeJar = Module.fileFrom( compilerInstall.bridge )
 
     // Provide static compiler-bridge jar.
     val bridgeProvider = ZincCompilerUtil.constantBridgeProvider( scalaInstance, bridgeJar )
@@ -262,7 +284,7 @@ trait Compiler extends AnyRef
       provider         = bridgeProvider,
       classpathOptions = ClasspathOptionsUtil.auto,
       onArgsHandler = _ => (),
-      classLoaderCache = None // FIXME provide loader cache
+      classLoaderCache = Some( loaderEntry.bridgeCache )
     )
 
     // Compilation status logger.
@@ -277,87 +299,143 @@ trait Compiler extends AnyRef
   }
 
   /**
-   * Setup and invoke Zinc incremental compiler.
+   * Compilation scope fingerprint file.
    */
-  def zincPerformCompile() : Unit = {
-    val context = Context(); import context._
-
-    // Use zinc incremental compiler.
-    val incremental = new IncrementalCompilerImpl
+  def zincBuildFingerprint : File = {
+    Fingerprint.fileFrom( zincBuildCache )
+  }
 
-    val compilers = incremental.compilers(
-      instance  = scalaInstance,
-      cpOptions = ClasspathOptionsUtil.boot,
-      javaHome  = None, // optionJavaHome,
-      scalac    = scalaCompiler
+  /**
+   * Digest of compilation scope inputs, without compiler context.
+   */
+  def zincFingerprintDigest() : String = {
+    val entryList = Seq(
+      pluginMeta.getVersion,
+      resolveCustomInstall().title,
+      zincBuildTarget.getCanonicalPath,
+      zincOptionsScala,
+      zincOptionsJava
     )
+    Fingerprint.digestFrom(
+      entryList,
+      zincBuildSources.map( _.getCanonicalFile ),
+      zincBuildClassPath.map( _.getCanonicalFile )
+    )
+  }
 
-    // FIXME review
-    val lookup = new PerClasspathEntryLookup {
-      override def analysis( classpathEntry : File ) : Optional[ CompileAnalysis ] = Optional.empty[ CompileAnalysis ]
-      override def definesClass( classpathEntry : File ) : DefinesClass = Locate.definesClass( classpathEntry )
+  /**
+   * Setup and invoke Zinc incremental compiler,
+   * unless scope fingerprint is unchanged since last compilation.
+   */
+  def zincPerformCompile() : Unit = {
+    if ( !zincFingerprintEnable ) {
+      zincInvokeCompile()
+      return
+    }
+    val fingerprintFile = zincBuildFingerprint
+    val fingerprintDigest = zincFingerprintDigest()
+    val hasOutput = zincBuildCache.isFile && zincBuildTarget.isDirectory
+    if ( hasOutput && Fingerprint.hasCurrent( fingerprintFile, fingerprintDigest ) ) {
+      logger.info( s"Skipping Zinc compiler: unchanged fingerprint ${fingerprintFile}" )
+      // Keep analysis available for dependent scopes and modules.
+      val cacheFile = zincBuildCache.getCanonicalFile
+      Lookup.registerStore(
+        zincBuildTarget.getCanonicalFile, zincStateStore( cacheFile ), cacheFile, zincLookupCacheLimit
+      )
+      return
     }
+    // Invalidate fingerprint for failed compilation.
+    Fingerprint.remove( fingerprintFile )
+    zincInvokeCompile()
+    // Save fingerprint only for persisted analysis.
+    Storage.flush( zincBuildCache )
+    Fingerprint.save( fingerprintFile, fingerprintDigest )
+  }
 
-    // Incremental compiler setup.
-    val setup = incremental.setup(
-      lookup         = lookup,
-      skip           = false,
-      cacheFile      = buildCacheFile,
-      cache          = CompilerCache.fresh,
-      incOptions     = IncOptions.of(),
-      reporter       = reporter,
-      optionProgress = Some( progress ),
-      extra          = Array.empty
-    )
+  /**
+   * Invoke Zinc incremental compiler in this JVM or in the compilation server.
+   */
+  def zincInvokeCompile() : Unit = {
+    if ( hasServerCompile ) {
+      zincServerCompile()
+    } else {
+      zincLocalCompile()
+    }
+  }
 
-    // Extract past state.
-    val storePast = zincStateStore( buildCacheFile )
-    val storeNext = AnalysisStore.getCachedStore( storePast )
+  /**
+   * Build integration key for successful compilation marker of a scope.
+   */
+  def zincChangesKey( cacheFile : File ) : String = {
+    s"scalor-zinc-changes@${cacheFile}"
+  }
 
-    //    val contentPast = storePast.get()
-    //    val resultPast = PreviousResult
-    //      .of( contentPast.map( _.getAnalysis ), contentPast.map( _.getMiniSetup ) )
+  /**
+   * Source files changed since previous successful compilation, when known from
+   * M2E incremental build or from watch cycle. Changes are trusted only when
+   * previous compilation of this scope in the same build integration was successful.
+   */
+  def zincSourceChanges( cacheFile : File ) : Option[ Set[ File ] ] = {
+    if ( !zincSourceChangesEnable || !hasIncremental ) {
+      return None
+    }
+    // Always consume changes, so that next build reports only newer changes.
+    val updateList = contextUpdateResult( zincBuildSourceFolders, ".+".r )
+    val hasMarker = contextExtract[ Object ]( zincChangesKey( cacheFile ) ).isDefined
+    if ( hasMarker ) {
+      Some( updateList.flatMap( _.changed ).map( _.getCanonicalFile ).toSet )
+    } else {
+      None
+    }
+  }
 
-    // Iterative inputs.
-    val inputsPast = incremental.inputs(
-      classpath             = buildClassPath,
-      sources               = buildSources,
-      classesDirectory      = buildOutputFolder,
-      scalacOptions         = scalacOptions,
-      javacOptions          = javacOptions,
-      maxErrors             = maxErrors,
-      sourcePositionMappers = Array.empty,
-      order                 = compileOrder,
-      compilers             = compilers,
-      setup                 = setup,
-      pr                    = incremental.emptyPreviousResult
-    //      pr                    = resultPast
-    )
+  /**
+   * Compilation scope source folders.
+   */
+  def zincBuildSourceFolders : Array[ File ] = {
+    buildSourceFolders
+  }
 
-    // Iterative inputs.
-    val inputsNext = {
-      InterfaceUtil.toOption( storeNext.get() ) match {
-        case Some( contentPast ) =>
-          val analysisPast = contentPast.getAnalysis
-          val setupPast = contentPast.getMiniSetup
-          val resultPast = PreviousResult.of(
-            Optional.of[ CompileAnalysis ]( analysisPast ),
-            Optional.of[ MiniSetup ]( setupPast )
-          )
-          inputsPast.withPreviousResult( resultPast )
-        case _ =>
-          inputsPast
-      }
-    }
+  /**
+   * Invoke Zinc incremental compiler in this JVM.
+   */
+  def zincLocalCompile() : Unit = {
+    val context = Context(); import context._
+
+    // Known source changes, if any.
+    val changesKey = zincChangesKey( buildCacheFile )
+    val sourceChanges = zincSourceChanges( buildCacheFile )
+    contextPersist[ Object ]( changesKey, None )
+
+    // Incremental compiler arguments.
+    val invocation = Invocation(
+      scalaInstance = scalaInstance,
+      scalaCompiler = scalaCompiler,
+      classPath     = buildClassPath,
+      sources       = buildSources,
+      outputFolder  = buildOutputFolder,
+      cacheFile     = buildCacheFile,
+      stateStore    = zincStateStore( buildCacheFile ),
+      scalacOptions = scalacOptions,
+      javacOptions  = javacOptions,
+      compileOrder  = compileOrder,
+      maxErrors     = maxErrors,
+      lookupLimit   = zincLookupCacheLimit,
+      classIndex    = if ( zincClassIndexEnable ) Some( zincClassIndexFile ) else None,
+      metricsReport = if ( zincLogCompilerMetrics ) Some( zincCompilerMetricsReport ) else None,
+      sourceChanges = sourceChanges,
+      compilerCache = zincCompilerCache,
+      logger        = cologger,
+      reporter      = reporter,
+      progress      = progress
+    )
 
     logger.info( s"Invoking Zinc compiler: ${compilerInstall.identity}" )
 
-    // Run compiler invocation.
-    val resultNext = incremental.compile( inputsNext, cologger )
+    invokeIncremental( invocation )
 
-    // Persist next state.
-    val contentNext = AnalysisContents.create( resultNext.analysis, resultNext.setup )
-    storeNext.set( contentNext )
+    // Mark successful compilation.
+    contextPersist[ Object ]( changesKey, Some( buildCacheFile ) )
 
   }
 
@@ -416,17 +494,160 @@ object Compiler {
     )
   }
 
+  /**
+   * Zinc incremental compiler, stateless, shared by all invocations.
+   */
+  val incremental = new IncrementalCompilerImpl
+
+  /**
+   * Incremental compiler invocation arguments, independent of Maven.
+   */
+  case class Invocation(
+    scalaInstance : ScalaInstance,
+    scalaCompiler : AnalyzingCompiler,
+    classPath :     Array[ File ],
+    sources :       Array[ File ],
+    outputFolder :  File,
+    cacheFile :     File,
+    stateStore :    AnalysisStore,
+    scalacOptions : Array[ String ],
+    javacOptions :  Array[ String ],
+    compileOrder :  CompileOrder,
+    maxErrors :     Int,
+    lookupLimit :   Int,
+    classIndex :    Option[ File ],
+    metricsReport : Option[ File ],
+    sourceChanges : Option[ Set[ File ] ],
+    compilerCache : Globals,
+    logger :        Logging.Logger,
+    reporter :      Logging.Reporter,
+    progress :      Logging.Progress
+  )
+
+  /**
+   * Invoke Zinc incremental compiler, persist resulting analysis.
+   */
+  def invokeIncremental( invocation : Invocation ) : Unit = {
+    import invocation._
+
+    // Compiler timing and metrics.
+    val metrics = Metrics.Collector( progress, Metrics.scopeFrom( cacheFile ), sources.length )
+
+    val compilers = incremental.compilers(
+      instance  = scalaInstance,
+      cpOptions = ClasspathOptionsUtil.boot,
+      javaHome  = None, // optionJavaHome,
+      scalac    = scalaCompiler
+    )
+
+    // Resolve jar class names from persisted index.
+    classIndex.foreach( Defines.load( _ ) )
+
+    // Resolve analysis of other scopes and modules.
+    val lookup = Lookup.newLookup( outputFolder, classIndex.isDefined )
+
+    // Incremental compiler setup.
+    val setup = incremental.setup(
+      lookup         = lookup,
+      skip           = false,
+      cacheFile      = cacheFile,
+      cache          = compilerCache,
+      incOptions     = Changes.incOptions( sourceChanges, sources ),
+      reporter       = reporter,
+      optionProgress = Some( metrics ),
+      extra          = Array.empty
+    )
+
+    // Extract past state.
+    val storeNext = AnalysisStore.getCachedStore( stateStore )
+
+    // Iterative inputs.
+    val inputsPast = incremental.inputs(
+      classpath             = classPath,
+      sources               = sources,
+      classesDirectory      = outputFolder,
+      scalacOptions         = scalacOptions,
+      javacOptions          = javacOptions,
+      maxErrors             = maxErrors,
+      sourcePositionMappers = Array.empty,
+      order                 = compileOrder,
+      compilers             = compilers,
+      setup                 = setup,
+      pr                    = incremental.emptyPreviousResult
+    )
+
+    // Iterative inputs.
+    val inputsNext = {
+      metrics.measureLoad( InterfaceUtil.toOption( storeNext.get() ) ) match {
+        case Some( contentPast ) =>
+          val analysisPast = contentPast.getAnalysis
+          val setupPast = contentPast.getMiniSetup
+          val resultPast = PreviousResult.of(
+            Optional.of[ CompileAnalysis ]( analysisPast ),
+            Optional.of[ MiniSetup ]( setupPast )
+          )
+          inputsPast.withPreviousResult( resultPast )
+        case _ =>
+          inputsPast
+      }
+    }
+
+    // Run compiler invocation.
+    val resultNext = metrics.measureCompile( incremental.compile( inputsNext, logger ) )
+
+    // Persist next state.
+    val contentNext = AnalysisContents.create( resultNext.analysis, resultNext.setup )
+    metrics.measureStore( storeNext.set( contentNext ) )
+
+    // Report compiler metrics.
+    val metricsNext = metrics.report( resultNext.analysis )
+    metricsReport match {
+      case Some( reportFile ) =>
+        Metrics.persist( reportFile, metricsNext )
+        logger.info( s"Compiler metrics: ${metricsNext.summary}" )
+      case None =>
+        logger.debug( s"Compiler metrics: ${metricsNext.summary}" )
+    }
+
+    logger.debug( s"Compiler cache: ${compilerCache.report}" )
+
+    // Publish next state for dependent scopes and modules.
+    Lookup.register( outputFolder, stateStore, cacheFile, resultNext.analysis, lookupLimit )
+
+    // Persist newly indexed jars.
+    classIndex.foreach( file => Try( Defines.persist( file ) ) )
+
+  }
+
+  /**
+   * Incremental compiler file analysis store for a store type.
+   */
+  def storeFrom( cacheFile : File, storeType : Store.Type ) : AnalysisStore = {
+    val write = storeType match {
+      case Store.Text    => FileAnalysisStore.text( cacheFile )
+      case Store.Compact => Stores.LayoutStore( cacheFile, Stores.Layout.Compact )
+      case Store.Mapped  => Stores.LayoutStore( cacheFile, Stores.Layout.Mapped )
+      case _             => FileAnalysisStore.binary( cacheFile )
+    }
+    // Read any known type, persist configured type.
+    Stores.MigrateStore( cacheFile, write )
+  }
+
   object Store {
     sealed trait Type
     case object Text extends Type
     case object Binary extends Type
+    case object Compact extends Type
+    case object Mapped extends Type
     case object Unknown extends Type
   }
 
   def storeType( name : String ) = name match {
-    case "text"   => Store.Text
-    case "binary" => Store.Binary
-    case _        => Store.Unknown
+    case "text"    => Store.Text
+    case "binary"  => Store.Binary
+    case "compact" => Store.Compact
+    case "mapped"  => Store.Mapped
+    case _         => Store.Unknown
   }
 
 }
@@ -0,0 +1,193 @@
+package com.carrotgarden.maven.scalor.zinc
+
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.util.zip.Deflater
+import java.util.zip.DeflaterOutputStream
+import java.util.zip.InflaterInputStream
+import java.util.zip.ZipFile
+
+import scala.collection.JavaConverters._
+import scala.collection.concurrent.TrieMap
+import scala.util.Try
+
+import com.carrotgarden.maven.scalor.util.Folder._
+
+import sbt.internal.inc.Locate
+import xsbti.compile.DefinesClass
+
+/**
+ * Persistent JVM-wide index of class names defined by class path jars,
+ * replacement of Zinc jar scanning in Locate.definesClass.
+ *
+ * Index entries are keyed by canonical jar path and verified by jar size and
+ * modification time, so that changed jars are re-scanned.
+ * Index file is shared by all projects and scopes which use the same location.
+ */
+object Defines {
+
+  /**
+   * Class names of a jar at a given jar state.
+   *
+   * @param nameSet - class file paths without extension, i.e. "a/b/C$D"
+   */
+  case class Entry(
+    size :     Long,
+    modified : Long,
+    nameSet :  Set[ String ]
+  ) {
+    def hasCurrent( jar : File ) = jar.length == size && jar.lastModified == modified
+  }
+
+  val magic = 0x5343494E // "SCIN"
+  val version = 1
+
+  val classSuffix = ".class"
+
+  /**
+   * Indexed jars, keyed by canonical jar path.
+   */
+  val entryMap = TrieMap[ String, Entry ]()
+
+  /**
+   * Index files already merged into memory.
+   */
+  val loadedSet = TrieMap[ String, Boolean ]()
+
+  @volatile var hasChange = false
+
+  /**
+   * Class lookup for a class path entry.
+   */
+  def definesClass( classpathEntry : File ) : DefinesClass = {
+    if ( classpathEntry.isFile && hasJar( classpathEntry ) ) {
+      val nameSet = provideEntry( classpathEntry ).nameSet
+      new DefinesClass {
+        override def apply( className : String ) : Boolean = {
+          nameSet.contains( className.replace( '.', '/' ) )
+        }
+      }
+    } else {
+      Locate.definesClass( classpathEntry )
+    }
+  }
+
+  def hasJar( file : File ) : Boolean = {
+    val name = file.getName
+    name.endsWith( ".jar" ) || name.endsWith( ".zip" )
+  }
+
+  /**
+   * Provide current index entry for a jar, scan jar when missing or changed.
+   */
+  def provideEntry( jar : File ) : Entry = {
+    val key = jar.getCanonicalPath
+    entryMap.get( key ).filter( _.hasCurrent( jar ) ).getOrElse {
+      val entry = scanEntry( jar )
+      entryMap.put( key, entry )
+      hasChange = true
+      entry
+    }
+  }
+
+  /**
+   * Extract class names from a jar.
+   */
+  def scanEntry( jar : File ) : Entry = {
+    val size = jar.length
+    val modified = jar.lastModified
+    val nameSet = Try {
+      val zipFile = new ZipFile( jar )
+      try {
+        zipFile.entries.asScala
+          .map( _.getName )
+          .filter( _.endsWith( classSuffix ) )
+          .map( _.stripSuffix( classSuffix ) )
+          .toSet
+      } finally {
+        zipFile.close()
+      }
+    }.getOrElse( Set.empty[ String ] )
+    Entry( size, modified, nameSet )
+  }
+
+  /**
+   * Merge persisted index into memory, once per index file.
+   */
+  def load( indexFile : File ) : Unit = {
+    val key = indexFile.getCanonicalPath
+    if ( loadedSet.putIfAbsent( key, true ).isDefined || !indexFile.isFile ) {
+      return
+    }
+    Try {
+      val input = new DataInputStream( new InflaterInputStream(
+        new BufferedInputStream( new FileInputStream( indexFile ), 64 * 1024 )
+      ) )
+      try {
+        if ( input.readInt != magic || input.readInt != version ) {
+          return
+        }
+        val entryCount = input.readInt
+        for ( _ <- 0 until entryCount ) {
+          val path = input.readUTF
+          val size = input.readLong
+          val modified = input.readLong
+          val nameCount = input.readInt
+          val nameSet = Set.newBuilder[ String ]
+          for ( _ <- 0 until nameCount ) {
+            nameSet += input.readUTF
+          }
+          entryMap.putIfAbsent( path, Entry( size, modified, nameSet.result ) )
+        }
+      } finally {
+        input.close()
+      }
+    }
+  }
+
+  /**
+   * Persist memory index when changed, drop entries of removed jars.
+   */
+  def persist( indexFile : File ) : Unit = synchronized {
+    if ( !hasChange ) {
+      return
+    }
+    hasChange = false
+    ensureParent( indexFile )
+    val entryList = entryMap.toList.filter { case ( path, _ ) => new File( path ).isFile }
+    val tempFile = File.createTempFile( indexFile.getName + ".", ".tmp", indexFile.getParentFile )
+    try {
+      val output = new DataOutputStream( new DeflaterOutputStream(
+        new BufferedOutputStream( new FileOutputStream( tempFile ), 64 * 1024 ),
+        new Deflater( Deflater.BEST_SPEED )
+      ) )
+      try {
+        output.writeInt( magic )
+        output.writeInt( version )
+        output.writeInt( entryList.size )
+        entryList.foreach {
+          case ( path, entry ) =>
+            output.writeUTF( path )
+            output.writeLong( entry.size )
+            output.writeLong( entry.modified )
+            output.writeInt( entry.nameSet.size )
+            entry.nameSet.foreach( output.writeUTF( _ ) )
+        }
+      } finally {
+        output.close()
+      }
+      Files.move( tempFile.toPath, indexFile.toPath,
+        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE )
+    } finally {
+      Try( Files.deleteIfExists( tempFile.toPath ) )
+    }
+  }
+
+}
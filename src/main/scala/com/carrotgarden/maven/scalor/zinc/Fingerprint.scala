@@ -0,0 +1,103 @@
+package com.carrotgarden.maven.scalor.zinc
+
+import java.io.File
+import java.nio.charset.StandardCharsets
+import java.nio.file.FileVisitResult
+import java.nio.file.Files
+import java.nio.file.Path
+import java.nio.file.SimpleFileVisitor
+import java.nio.file.attribute.BasicFileAttributes
+import java.security.MessageDigest
+
+import scala.collection.mutable.ArrayBuffer
+import scala.util.Try
+
+import com.carrotgarden.maven.scalor.util.Folder._
+import com.carrotgarden.maven.scalor.util.Text
+
+/**
+ * Compilation scope fingerprint: digest of compiler inputs,
+ * used to detect unchanged scope before invoking Zinc.
+ *
+ * Fingerprint covers configuration entries, such as compiler options and
+ * installation identity, source file stamps and class path entry stamps.
+ * Class path folders are stamped by all contained files.
+ */
+object Fingerprint {
+
+  val fileSuffix = ".fingerprint"
+
+  /**
+   * Fingerprint file which accompanies scope analysis cache file.
+   */
+  def fileFrom( cacheFile : File ) : File = {
+    new File( cacheFile.getPath + fileSuffix )
+  }
+
+  /**
+   * Render fingerprint digest from compiler inputs.
+   */
+  def digestFrom(
+    entryList : Seq[ String ],
+    sources :   Seq[ File ],
+    classPath : Seq[ File ]
+  ) : String = {
+    val digest = MessageDigest.getInstance( "MD5" )
+    def update( text : String ) : Unit = {
+      digest.update( text.getBytes( StandardCharsets.UTF_8 ) )
+      digest.update( 0.toByte )
+    }
+    entryList.foreach( update )
+    update( "sources" )
+    sources.sortBy( _.getPath ).foreach { file =>
+      update( stampFile( file ) )
+    }
+    update( "classpath" )
+    classPath.foreach { entry =>
+      if ( entry.isDirectory ) {
+        update( entry.getPath )
+        stampFolder( entry ).foreach( update )
+      } else {
+        update( stampFile( entry ) )
+      }
+    }
+    Text.renderHex( digest.digest )
+  }
+
+  def stampFile( file : File ) : String = {
+    s"${file.getPath}:${file.length}:${file.lastModified}"
+  }
+
+  /**
+   * Stamp folder by relative path, size and modification time of contained files.
+   */
+  def stampFolder( folder : File ) : Seq[ String ] = {
+    val root = folder.toPath
+    val stampList = ArrayBuffer[ String ]()
+    Files.walkFileTree( root, new SimpleFileVisitor[ Path ] {
+      override def visitFile( path : Path, attrs : BasicFileAttributes ) : FileVisitResult = {
+        val relative = root.relativize( path ).toString
+        stampList += s"${relative}:${attrs.size}:${attrs.lastModifiedTime.toMillis}"
+        FileVisitResult.CONTINUE
+      }
+    } )
+    stampList.sorted
+  }
+
+  /**
+   * Verify persisted fingerprint.
+   */
+  def hasCurrent( file : File, digest : String ) : Boolean = {
+    file.isFile && Try( loadString( file ) ).toOption.exists( _ == digest )
+  }
+
+  def save( file : File, digest : String ) : Unit = {
+    ensureParent( file )
+    persistString( file, digest )
+  }
+
+  def remove( file : File ) : Unit = {
+    Files.deleteIfExists( file.toPath )
+  }
+
+}
@@ -0,0 +1,105 @@
+package com.carrotgarden.maven.scalor.zinc
+
+import java.util.concurrent.atomic.AtomicBoolean
+
+import com.carrotgarden.maven.scalor.util.Cache
+
+import xsbti.Logger
+import xsbti.Reporter
+import xsbti.compile.CachedCompiler
+import xsbti.compile.CachedCompilerProvider
+import xsbti.compile.GlobalsCache
+import xsbti.compile.Output
+
+/**
+ * Bounded thread-safe cache of Scala compiler instances (Global)
+ * with usage statistics, replacement of Zinc CompilerCache.
+ *
+ * Compiler instance is bound to its command arguments, which include
+ * class path and output folder, therefore it is re-used only by repeated
+ * compilations of the same scope, i.e. in M2E and in [[Server]].
+ *
+ * @param limit - maximum number of retained compilers, non-positive disables retention
+ */
+case class Globals( limit : Int ) extends GlobalsCache {
+
+  import Globals._
+
+  val compilerCache = new Cache[ Key, CachedCompiler ]( limit )
+
+  override def apply(
+    args :     Array[ String ],
+    output :   Output,
+    forceNew : Boolean,
+    provider : CachedCompilerProvider,
+    log :      Logger,
+    reporter : Reporter
+  ) : CachedCompiler = {
+    val key = keyFrom( args, provider )
+    if ( forceNew ) {
+      compilerCache.remove( key )
+    }
+    compilerCache( key ) {
+      provider.newCachedCompiler( args, output, log, reporter )
+    }
+  }
+
+  override def clear() : Unit = {
+    compilerCache.clear()
+  }
+
+  def resize( limit : Int ) : Unit = {
+    compilerCache.resize( limit )
+  }
+
+  def report : String = compilerCache.report
+
+}
+
+object Globals {
+
+  /**
+   * Compiler identity: arguments without sources, compiler installation.
+   * Class loader is compared by reference, which is also retained by the compiler itself.
+   */
+  case class Key(
+    args :    List[ String ],
+    version : String,
+    loader :  ClassLoader
+  )
+
+  def keyFrom( args : Array[ String ], provider : CachedCompilerProvider ) : Key = {
+    val instance = provider.scalaInstance
+    val argsList = args.toList.filterNot( arg => arg.endsWith( ".scala" ) || arg.endsWith( ".java" ) )
+    Key( argsList, instance.actualVersion, instance.loader )
+  }
+
+  /**
+   * JVM-wide compiler cache, shared by all scopes and projects.
+   */
+  val globalsCache = Globals( 0 )
+
+  private val hasLimit = new AtomicBoolean()
+
+  /**
+   * Apply shared cache size limit once per JVM: first configuring execution wins,
+   * so that builds sharing the JVM do not evict each other's compilers.
+   */
+  def configure( limit : Int ) : Unit = {
+    if ( hasLimit.compareAndSet( false, true ) ) {
+      globalsCache.resize( limit )
+    }
+  }
+
+  /**
+   * Provide shared compiler cache, or a non-retaining cache for one-off builds.
+   *
+   * @param limit - shared cache size limit, see [[configure]]
+   * @param retain - retain compilers for repeated builds in the same JVM
+   */
+  def provideCache( limit : Int, retain : Boolean ) : Globals = {
+    configure( limit )
+    if ( retain ) globalsCache else Globals( 0 )
+  }
+
+}
@@ -0,0 +1,99 @@
+package com.carrotgarden.maven.scalor.zinc
+
+import java.io.File
+import java.net.URLClassLoader
+import java.util.concurrent.atomic.AtomicBoolean
+
+import com.carrotgarden.maven.scalor.util.Cache
+import com.carrotgarden.maven.scalor.util.Logging.AnyLog
+
+import sbt.internal.inc.classpath.ClassLoaderCache
+
+/**
+ * JVM-wide cache of Scala compiler and compiler-bridge class loaders.
+ *
+ * Shared by all executions of this plugin in the same class realm,
+ * so that macro/main/test scopes of every reactor module re-use
+ * already loaded and JIT-compiled compiler classes.
+ *
+ * Evicted class loaders are not closed, since concurrent builds and cached
+ * compiler instances may still use them; they are released by garbage collection.
+ */
+object Loader {
+
+  /**
+   * Class loaders for one Scala compiler installation.
+   *
+   * @param identity - installation identity with path digest
+   * @param compilerLoader - loader for scala-compiler and dependencies
+   * @param bridgeCache - Zinc cache for compiler-bridge loaders
+   */
+  case class Entry(
+    identity :       String,
+    compilerLoader : URLClassLoader,
+    bridgeCache :    ClassLoaderCache
+  )
+
+  /**
+   * Installation entries, keyed by [[ScalaInstall.withTitleDigest]].
+   */
+  val loaderCache = new Cache[ String, Entry ]( limit = 4 )
+
+  private val hasLimit = new AtomicBoolean()
+
+  /**
+   * Apply cache size limit once per JVM: first configuring execution wins,
+   * so that concurrent builds do not evict each other's loaders.
+   */
+  def configure( limit : Int ) : Unit = {
+    if ( hasLimit.compareAndSet( false, true ) ) {
+      loaderCache.resize( limit )
+    }
+  }
+
+  /**
+   * Provide cached class loaders for a compiler installation.
+   */
+  def provideEntry(
+    install : ScalaInstall,
+    limit :   Int,
+    logger :  AnyLog
+  ) : Entry = {
+    val classPath = install.zincJars.map( Module.fileFrom( _ ) )
+    provideEntry( install.title, classPath, limit, logger )
+  }
+
+  /**
+   * Provide cached class loaders for a compiler class path.
+   */
+  def provideEntry(
+    identity :  String,
+    classPath : Seq[ File ],
+    limit :     Int,
+    logger :    AnyLog
+  ) : Entry = {
+    configure( limit )
+    loaderCache( identity ) {
+      logger.dbug( s"Creating compiler loader: ${identity}" )
+      newEntry( identity, classPath )
+    }
+  }
+
+  /**
+   * Produce fresh class loaders for a compiler class path.
+   */
+  def newEntry( identity : String, classPath : Seq[ File ] ) : Entry = {
+    val compilerLoader = newLoader( classPath )
+    val bridgeCache = new ClassLoaderCache( compilerLoader )
+    Entry( identity, compilerLoader, bridgeCache )
+  }
+
+  /**
+   * Produce class loader for a class path.
+   */
+  def newLoader( classPath : Seq[ File ] ) : URLClassLoader = {
+    val entryList = classPath.map( _.toURI.toURL ).toArray
+    new URLClassLoader( entryList )
+  }
+
+}
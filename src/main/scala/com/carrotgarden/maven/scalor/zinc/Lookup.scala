@@ -0,0 +1,156 @@
+package com.carrotgarden.maven.scalor.zinc
+
+import java.io.File
+import java.util.Optional
+import java.util.concurrent.atomic.AtomicBoolean
+
+import scala.util.Try
+
+import com.carrotgarden.maven.scalor.util.Cache
+
+import sbt.internal.inc.Locate
+import sbt.util.InterfaceUtil
+import xsbti.compile.AnalysisStore
+import xsbti.compile.CompileAnalysis
+import xsbti.compile.DefinesClass
+import xsbti.compile.PerClasspathEntryLookup
+
+/**
+ * JVM-wide registry of compilation scope analysis, keyed by output folder.
+ *
+ * Lets Zinc resolve class path entries produced by other compilation scopes
+ * (macro, main, test) and by upstream reactor modules into their analysis,
+ * for name-hash precise invalidation instead of class file invalidation.
+ */
+object Lookup {
+
+  /**
+   * Registered analysis of a compilation scope.
+   *
+   * @param outputFolder - scope classes output folder
+   * @param stateStore - scope persisted analysis store
+   * @param cacheFile - scope analysis store file
+   * @param stamp - cache file modification time for the analysis
+   * @param analysis - scope analysis after last compilation
+   */
+  case class Entry(
+    outputFolder : File,
+    stateStore :   AnalysisStore,
+    cacheFile :    File,
+    stamp :        Long,
+    analysis :     CompileAnalysis
+  ) {
+
+    /**
+     * Analysis is current when store was not changed by another build.
+     */
+    def hasCurrent = cacheFile.lastModified == stamp
+
+  }
+
+  /**
+   * Registered scopes, keyed by canonical output folder path.
+   */
+  val entryCache = new Cache[ String, Entry ]( limit = 64 )
+
+  private val hasLimit = new AtomicBoolean()
+
+  /**
+   * Apply registry size limit once per JVM: first configuring execution wins,
+   * so that reactor modules do not evict scopes registered by each other.
+   */
+  def configure( limit : Int ) : Unit = {
+    if ( hasLimit.compareAndSet( false, true ) ) {
+      entryCache.resize( limit )
+    }
+  }
+
+  def keyFrom( folder : File ) : String = folder.getCanonicalPath
+
+  /**
+   * Register scope analysis after compilation.
+   */
+  def register(
+    outputFolder : File,
+    stateStore :   AnalysisStore,
+    cacheFile :    File,
+    analysis :     CompileAnalysis,
+    limit :        Int
+  ) : Unit = {
+    configure( limit )
+    val entry = Entry( outputFolder, stateStore, cacheFile, cacheFile.lastModified, analysis )
+    entryCache.put( keyFrom( outputFolder ), entry )
+  }
+
+  /**
+   * Register scope analysis store without compilation,
+   * analysis is loaded from the store on first lookup.
+   */
+  def registerStore(
+    outputFolder : File,
+    stateStore :   AnalysisStore,
+    cacheFile :    File,
+    limit :        Int
+  ) : Unit = {
+    configure( limit )
+    val key = keyFrom( outputFolder )
+    if ( entryCache.get( key ).isEmpty ) {
+      entryCache.put( key, Entry( outputFolder, stateStore, cacheFile, -1L, null ) )
+    }
+  }
+
+  /**
+   * Resolve class path folder into registered scope analysis.
+   * Reload analysis from the store when it was updated by another build.
+   */
+  def analysis( classpathEntry : File ) : Option[ CompileAnalysis ] = {
+    if ( !classpathEntry.isDirectory ) {
+      return None
+    }
+    val key = keyFrom( classpathEntry )
+    entryCache.get( key ).flatMap { entry =>
+      if ( entry.hasCurrent ) {
+        Some( entry.analysis )
+      } else {
+        val stamp = entry.cacheFile.lastModified
+        val content = Try( InterfaceUtil.toOption( entry.stateStore.get() ) ).toOption.flatten
+        content match {
+          case Some( content ) =>
+            val analysis = content.getAnalysis
+            entryCache.put( key, entry.copy( stamp = stamp, analysis = analysis ) )
+            Some( analysis )
+          case None =>
+            entryCache.remove( key )
+            None
+        }
+      }
+    }
+  }
+
+  /**
+   * Class path entry lookup for a compilation scope.
+   *
+   * @param outputFolder - own scope output folder, excluded from lookup
+   * @param classIndex - resolve jar class names via [[Defines]] index
+   */
+  def newLookup( outputFolder : File, classIndex : Boolean = false ) : PerClasspathEntryLookup = {
+    val ownKey = keyFrom( outputFolder )
+    new PerClasspathEntryLookup {
+      override def analysis( classpathEntry : File ) : Optional[ CompileAnalysis ] = {
+        if ( keyFrom( classpathEntry ) == ownKey ) {
+          Optional.empty[ CompileAnalysis ]
+        } else {
+          InterfaceUtil.toOptional( Lookup.analysis( classpathEntry ) )
+        }
+      }
+      override def definesClass( classpathEntry : File ) : DefinesClass = {
+        if ( classIndex ) {
+          Defines.definesClass( classpathEntry )
+        } else {
+          Locate.definesClass( classpathEntry )
+        }
+      }
+    }
+  }
+
+}
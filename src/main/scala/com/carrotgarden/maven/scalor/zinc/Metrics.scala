@@ -0,0 +1,206 @@
+package com.carrotgarden.maven.scalor.zinc
+
+import java.io.File
+
+import scala.collection.mutable
+import scala.util.Try
+
+import com.carrotgarden.maven.scalor.util.Folder._
+
+import sbt.internal.inc.Analysis
+import xsbti.compile.CompileAnalysis
+import xsbti.compile.CompileProgress
+
+/**
+ * Zinc compiler timing and metrics report.
+ */
+object Metrics {
+
+  /**
+   * Compiler phase wall time, summed over all units and invalidation cycles.
+   */
+  case class Phase(
+    name :      String,
+    time :      Long,
+    unitCount : Int
+  )
+
+  /**
+   * Compilation unit wall time, summed over all phases and invalidation cycles.
+   */
+  case class Source(
+    path : String,
+    time : Long
+  )
+
+  /**
+   * Metrics of a single scope compilation, times in milliseconds.
+   *
+   * @param scope - compilation scope name, from analysis cache file name
+   * @param cycleCount - incremental compiler invalidation cycles
+   * @param sourceTotal - scope source count
+   * @param sourceCompiled - sources reported by compiler progress
+   */
+  case class Report(
+    scope :          String,
+    startTime :      Long,
+    totalTime :      Long,
+    loadTime :       Long,
+    compileTime :    Long,
+    storeTime :      Long,
+    cycleCount :     Int,
+    sourceTotal :    Int,
+    sourceCompiled : Int,
+    phaseList :      Seq[ Phase ],
+    sourceList :     Seq[ Source ]
+  ) {
+
+    def summary = {
+      s"scope=${scope} total=${totalTime}ms load=${loadTime}ms compile=${compileTime}ms store=${storeTime}ms " +
+        s"cycles=${cycleCount} sources=${sourceCompiled}/${sourceTotal}"
+    }
+
+  }
+
+  def millisFrom( nanos : Long ) : Long = nanos / 1000000
+
+  /**
+   * Scope name from analysis cache file, i.e. "main.zip" -> "main".
+   */
+  def scopeFrom( cacheFile : File ) : String = {
+    val name = cacheFile.getName
+    val index = name.lastIndexOf( '.' )
+    if ( index > 0 ) name.substring( 0, index ) else name
+  }
+
+  /**
+   * Collect compiler metrics while delegating progress reporting.
+   */
+  case class Collector(
+    progress :    CompileProgress,
+    scope :       String,
+    sourceTotal : Int
+  ) extends CompileProgress {
+
+    val startTime = System.currentTimeMillis
+    val startNanos = System.nanoTime
+
+    var loadNanos = 0L
+    var compileNanos = 0L
+    var storeNanos = 0L
+
+    val phaseTime = mutable.LinkedHashMap[ String, Long ]()
+    val phaseUnits = mutable.Map[ String, Int ]()
+    val unitTime = mutable.Map[ String, Long ]()
+
+    var activePhase : String = null
+    var activeUnit : String = null
+    var activeNanos = 0L
+
+    /**
+     * Attribute elapsed time to the active phase and unit.
+     */
+    def closeActive( nanos : Long ) : Unit = {
+      if ( activePhase != null ) {
+        val elapsed = nanos - activeNanos
+        phaseTime( activePhase ) = phaseTime.getOrElse( activePhase, 0L ) + elapsed
+        unitTime( activeUnit ) = unitTime.getOrElse( activeUnit, 0L ) + elapsed
+        activePhase = null
+        activeUnit = null
+      }
+    }
+
+    override def startUnit( phase : String, unitPath : String ) : Unit = synchronized {
+      val nanos = System.nanoTime
+      closeActive( nanos )
+      activePhase = phase
+      activeUnit = unitPath
+      activeNanos = nanos
+      phaseUnits( phase ) = phaseUnits.getOrElse( phase, 0 ) + 1
+      progress.startUnit( phase, unitPath )
+    }
+
+    override def advance( current : Int, total : Int ) : Boolean = synchronized {
+      closeActive( System.nanoTime )
+      progress.advance( current, total )
+    }
+
+    /**
+     * Measure a compilation step.
+     */
+    def measure[ T ]( record : Long => Unit )( step : => T ) : T = {
+      val nanos = System.nanoTime
+      try {
+        step
+      } finally {
+        record( System.nanoTime - nanos )
+      }
+    }
+
+    def measureLoad[ T ]( step : => T ) : T = measure( loadNanos += _ )( step )
+    def measureCompile[ T ]( step : => T ) : T = measure( compileNanos += _ )( step )
+    def measureStore[ T ]( step : => T ) : T = measure( storeNanos += _ )( step )
+
+    /**
+     * Invalidation cycles: compilations recorded in analysis during this run.
+     */
+    def cycleCount( analysis : CompileAnalysis ) : Int = {
+      analysis match {
+        case analysis : Analysis =>
+          analysis.compilations.allCompilations.count( _.getStartTime >= startTime )
+        case _ =>
+          0
+      }
+    }
+
+    def report( analysis : CompileAnalysis ) : Report = synchronized {
+      closeActive( System.nanoTime )
+      Report(
+        scope          = scope,
+        startTime      = startTime,
+        totalTime      = millisFrom( System.nanoTime - startNanos ),
+        loadTime       = millisFrom( loadNanos ),
+        compileTime    = millisFrom( compileNanos ),
+        storeTime      = millisFrom( storeNanos ),
+        cycleCount     = cycleCount( analysis ),
+        sourceTotal    = sourceTotal,
+        sourceCompiled = unitTime.size,
+        phaseList      = phaseTime.toSeq.map {
+          case ( name, nanos ) => Phase( name, millisFrom( nanos ), phaseUnits.getOrElse( name, 0 ) )
+        },
+        sourceList     = unitTime.toSeq.sortBy( -_._2 ).map {
+          case ( path, nanos ) => Source( path, millisFrom( nanos ) )
+        }
+      )
+    }
+
+  }
+
+  /**
+   * Persisted report format.
+   */
+  object Codec {
+    import upickle._
+    import upickle.default._
+    implicit def phaseCodec : ReadWriter[ Phase ] = macroRW
+    implicit def sourceCodec : ReadWriter[ Source ] = macroRW
+    implicit def reportCodec : ReadWriter[ Report ] = macroRW
+    def parse( text : String ) : Seq[ Report ] = read[ Seq[ Report ] ]( text )
+    def unparse( reportList : Seq[ Report ] ) : String = write( reportList, indent = 2 )
+  }
+
+  /**
+   * Replace scope entry in the project report file.
+   */
+  def persist( file : File, report : Report ) : Unit = {
+    val reportPast = if ( file.isFile ) {
+      Try( Codec.parse( loadString( file ) ) ).getOrElse( Seq.empty[ Report ] )
+    } else {
+      Seq.empty[ Report ]
+    }
+    val reportNext = reportPast.filterNot( _.scope == report.scope ) :+ report
+    ensureParent( file )
+    persistString( file, Codec.unparse( reportNext ) )
+  }
+
+}
@@ -92,6 +92,33 @@ trait ParamScalaInstall {
 
 }
 
+trait ParamsResolveCache {
+
+  @Description( """
+  Enable memoization of Scala installation resolution.
+  Resolved bridge, compiler and plugin artifacts are retained for the build session,
+  shared by all scopes and projects with the same dependency definitions,
+  and persisted in <a href="#zincResolveCacheFile"><b>zincResolveCacheFile</b></a> for the next build.
+  Resolution is repeated when dependency definitions change or when any resolved artifact file changes.
+  """ )
+  @Parameter(
+    property     = "scalor.zincResolveCacheEnable",
+    defaultValue = "true"
+  )
+  var zincResolveCacheEnable : Boolean = _
+
+  @Description( """
+  Location of persisted Scala installation resolution,
+  see <a href="#zincResolveCacheEnable"><b>zincResolveCacheEnable</b></a>.
+  """ )
+  @Parameter(
+    property     = "scalor.zincResolveCacheFile",
+    defaultValue = "${project.build.directory}/scalor/cache/install.json"
+  )
+  var zincResolveCacheFile : File = _
+
+}
+
 trait ParamsCompileOptions extends AnyRef
   with base.ParamsAny {
 
@@ -185,6 +212,8 @@ trait Params extends AnyRef
   with ParamsCompileOptions
   with ParamsLogging
   with ParamScalaInstall
+  with ParamsResolveCache
+  with ParamsServer
   // with ParamsRegex
   with ParamsToolchain {
 
@@ -205,9 +234,12 @@ trait Params extends AnyRef
   Incremental compiler file analysis store type for the state cache.
   Available types:
 <pre>
-  text   - compatible with Scala IDE
-  binary - high performance serializer
+  text    - compatible with Scala IDE
+  binary  - high performance serializer
+  compact - binary serializer, fastest deflate, smallest file
+  mapped  - binary serializer, uncompressed, single positional read without decompression
 </pre>
+  State cache written with another type is read and migrated to this type on next persist.
   """ )
   @Parameter(
     property     = "scalor.zincStateStoreType",
@@ -215,6 +247,184 @@ trait Params extends AnyRef
   )
   var zincStateStoreType : String = _
 
+  @Description( """
+  Maximum number of Zinc analysis states retained in the JVM-wide memory cache,
+  keyed by state file, such as <a href="#zincCacheMain"><b>zincCacheMain</b></a>.
+  Cached analysis is served from memory on repeated builds in Eclipse/M2E and in the Zinc compilation server,
+  and is reloaded when state file is changed by another build.
+  Analysis is persisted via temp file, fsync and atomic rename:
+  synchronously in command line builds, and asynchronously by a background writer
+  in Eclipse/M2E, in goal=watch and in the compilation server,
+  where a failed write fails the next compilation of the same scope.
+  Limit is JVM-wide and is applied once, by the first execution in the JVM.
+  Use <code>0</code> to read and write state file synchronously for each compilation.
+  """ )
+  @Parameter(
+    property     = "scalor.zincStateCacheLimit",
+    defaultValue = "16"
+  )
+  var zincStateCacheLimit : Int = _
+
+  @Description( """
+  Maximum number of Scala compiler installations retained in the JVM-wide class loader cache.
+  Cache is shared by all executions of <code>compile-*</code> and <code>scaladoc-*</code>
+  in the same Maven or Eclipse JVM, and is keyed by installation path digest,
+  see <a href="#zincScalaInstallTitle"><b>zincScalaInstallTitle</b></a>.
+  Least recently used installations are evicted, their class loaders are released by garbage collection.
+  Limit is JVM-wide and is applied once, by the first execution in the JVM.
+  Use <code>0</code> to create fresh class loaders for each execution.
+  """ )
+  @Parameter(
+    property     = "scalor.zincLoaderCacheLimit",
+    defaultValue = "4"
+  )
+  var zincLoaderCacheLimit : Int = _
+
+  @Description( """
+  Maximum number of compilation scopes retained in the JVM-wide analysis lookup registry.
+  Registry maps scope output folders, such as <code>target/classes</code> of this
+  or upstream reactor modules, to their Zinc analysis, so that dependent scopes
+  invalidate sources by API name hashes rather than by changed class files.
+  Analysis is reloaded from the state cache file when updated by another build.
+  Limit is JVM-wide and is applied once, by the first execution in the JVM.
+  Use <code>0</code> to disable analysis lookup.
+  """ )
+  @Parameter(
+    property     = "scalor.zincLookupCacheLimit",
+    defaultValue = "64"
+  )
+  var zincLookupCacheLimit : Int = _
+
+  @Description( """
+  Maximum number of Scala compiler instances retained in the JVM-wide compiler cache.
+  Compiler instance is bound to the scope compiler arguments, including class path and output folder,
+  and is re-used by repeated compilations of the same scope in Eclipse/M2E and in the Zinc compilation server,
+  see <a href="#zincServerEnable"><b>zincServerEnable</b></a>.
+  Retained compilers hold their symbol tables, so each entry costs substantial heap.
+  Cache hit/miss report is logged at Zinc <code>debug</code> level.
+  Limit is JVM-wide and is applied once, by the first execution in the JVM;
+  command line builds outside of goal=watch use fresh compiler instances and leave the cache intact.
+  Use <code>0</code> to create fresh compiler instances for each compilation.
+  """ )
+  @Parameter(
+    property     = "scalor.zincCompilerCacheLimit",
+    defaultValue = "4"
+  )
+  var zincCompilerCacheLimit : Int = _
+
+  @Description( """
+  Enable early detection of unchanged compilation scope.
+  Scope fingerprint is a digest of plugin version, Scala installation identity,
+  compiler options, source file stamps and class path entry stamps,
+  persisted next to the scope state cache file after successful compilation.
+  When fingerprint is unchanged, Zinc compiler context is not created and compiler is not invoked.
+  Class files removed from the output folder outside of the build are not detected,
+  use <code>mvn clean</code> or disable this parameter in such case.
+  """ )
+  @Parameter(
+    property     = "scalor.zincFingerprintEnable",
+    defaultValue = "true"
+  )
+  var zincFingerprintEnable : Boolean = _
+
+  @Description( """
+  Enable seeding of Zinc source change detection with changes known to the build integration:
+  resource deltas of Eclipse/M2E incremental build, or file snapshots of goal=watch.
+  Changes are used only after successful compilation of the same scope in the same integration,
+  otherwise Zinc detects changes by stamping all sources.
+  """ )
+  @Parameter(
+    property     = "scalor.zincSourceChangesEnable",
+    defaultValue = "true"
+  )
+  var zincSourceChangesEnable : Boolean = _
+
+  @Description( """
+  Enable persistent class name index of class path jars.
+  Index replaces Zinc jar scanning when resolving class names during invalidation:
+  each jar is scanned once, verified by jar size and modification time,
+  and remembered in the JVM and in the
+    <a href="#zincClassIndexFile"><b>zincClassIndexFile</b></a>.
+  """ )
+  @Parameter(
+    property     = "scalor.zincClassIndexEnable",
+    defaultValue = "true"
+  )
+  var zincClassIndexEnable : Boolean = _
+
+  @Description( """
+  Persistent class name index file, shared by all modules and scopes which use the same location.
+  Default location inside local Maven repository lets all builds on the machine re-use the index.
+  Entries of removed jars are dropped on update.
+  """ )
+  @Parameter(
+    property     = "scalor.zincClassIndexFile",
+    defaultValue = "${settings.localRepository}/.scalor/zinc-class-index.bin"
+  )
+  var zincClassIndexFile : File = _
+
+}
+
+trait ParamsServer {
+
+  @Description( """
+  Enable Zinc compilation server for <code>compile-*</code> goals.
+  Compilation server is a long-lived local daemon JVM, launched on demand,
+  which keeps Scala compiler class loaders and JIT state warm between Maven invocations.
+  Server listens on a loopback port published in
+    <a href="#zincServerStateFolder"><b>zincServerStateFolder</b></a>
+  and shuts down after
+    <a href="#zincServerIdleTimeout"><b>zincServerIdleTimeout</b></a>.
+  Ignored in Eclipse/M2E, which always compiles in-process.
+  """ )
+  @Parameter(
+    property     = "scalor.zincServerEnable",
+    defaultValue = "false"
+  )
+  var zincServerEnable : Boolean = _
+
+  @Description( """
+  Zinc compilation server state folder: address file <code>server.json</code>
+  and server console output <code>server.log</code>.
+  Server instance is shared by all builds which use the same state folder.
+  """ )
+  @Parameter(
+    property     = "scalor.zincServerStateFolder",
+    defaultValue = "${user.home}/.scalor/zinc-server/${plugin.version}"
+  )
+  var zincServerStateFolder : File = _
+
+  @Description( """
+  Zinc compilation server shutdown delay after last compilation request, in seconds.
+  """ )
+  @Parameter(
+    property     = "scalor.zincServerIdleTimeout",
+    defaultValue = "1800"
+  )
+  var zincServerIdleTimeout : Int = _
+
+  @Description( """
+  Maximum wait for Zinc compilation server launch, in seconds.
+  """ )
+  @Parameter(
+    property     = "scalor.zincServerLaunchTimeout",
+    defaultValue = "30"
+  )
+  var zincServerLaunchTimeout : Int = _
+
+  @Description( """
+  JVM options for Zinc compilation server launch.
+  Separator parameter: <a href="#commonSequenceSeparator"><b>commonSequenceSeparator</b></a>.
+  """ )
+  @Parameter(
+    property     = "scalor.zincServerJvmOptions",
+    defaultValue = """
+    -Xss4m ★
+    -Xmx2g ★
+    """
+  )
+  var zincServerJvmOptions : String = _
+
 }
 
 trait ParamsRegex extends base.BuildAnyRegex {
@@ -414,6 +624,29 @@ trait ParamsLogging {
   )
   var zincCompilerOptionsReport : File = _
 
+  @Description( """
+  Enable reporting of Zinc compiler timing and metrics:
+  wall time per compiler phase and per compilation unit, invalidation cycles,
+  recompiled versus total sources, analysis load and store time.
+  Logs summary line per compilation scope.
+  Report output location: <a href="#zincCompilerMetricsReport"><b>zincCompilerMetricsReport</b></a>
+  """ )
+  @Parameter(
+    property     = "scalor.zincLogCompilerMetrics",
+    defaultValue = "false"
+  )
+  var zincLogCompilerMetrics : Boolean = _
+
+  @Description( """
+  Report Zinc compiler timing and metrics to the report file, in JSON format, one entry per scope.
+  Enablement parameter: <a href="#zincLogCompilerMetrics"><b>zincLogCompilerMetrics</b></a>
+  """ )
+  @Parameter(
+    property     = "scalor.zincCompilerMetricsReport",
+    defaultValue = "${project.build.directory}/scalor/scala-metrics-report.json"
+  )
+  var zincCompilerMetricsReport : File = _
+
 }
 
 object Params extends Params {
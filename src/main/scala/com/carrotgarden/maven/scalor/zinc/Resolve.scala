@@ -1,19 +1,30 @@
 package com.carrotgarden.maven.scalor.zinc
 
+import java.io.File
+
 import com.carrotgarden.maven.tools.Description
 import org.apache.maven.plugins.annotations._
+import org.apache.maven.artifact.Artifact
+import org.apache.maven.artifact.DefaultArtifact
+import org.apache.maven.artifact.handler.DefaultArtifactHandler
+import org.apache.maven.model.Dependency
 import scala.collection.JavaConverters._
+import scala.collection.concurrent.TrieMap
+import scala.util.Try
 
 import com.carrotgarden.maven.scalor._
+import com.carrotgarden.maven.scalor.util.Folder._
 
 /**
  * Resolve Scala installation from defined dependencies.
  */
 trait Resolve {
 
-  self : ParamScalaInstall // 
+  self : ParamScalaInstall with ParamsResolveCache //
   with resolve.Maven with base.Params with base.ParamsCompiler =>
 
+  import Resolve._
+
   def moduleDetector() : Module.Detector = {
     Module.Detector(
       regexCompilerBridge,
@@ -38,11 +49,201 @@ trait Resolve {
       defineAutoPluginList( project )
     )
 
-    val defineResponse = resolveDefine( defineRequest, "compile" )
+    if ( !zincResolveCacheEnable ) {
+      val defineResponse = resolveDefine( defineRequest, resolveScope )
+      return ScalaInstall( zincScalaInstallTitle, detector, defineResponse ).withTitleDigest
+    }
+
+    val resolveKey = keyFrom( zincScalaInstallTitle, detector, defineRequest, resolveScope )
+
+    // Session memory, then persisted record, then actual resolution.
+    val memory = sessionMemory( repoSession )
+    memory.get( resolveKey ).filter( _.hasCurrent ).map( _.install ).getOrElse {
+      val persisted = loadRecord( zincResolveCacheFile ).filter { record =>
+        record.key == resolveKey && record.hasCurrent
+      }
+      val defineResponse = persisted.map( _.response ).getOrElse {
+        val response = resolveDefine( defineRequest, resolveScope )
+        Try( saveRecord( zincResolveCacheFile, Record.from( resolveKey, response ) ) )
+        response
+      }
+      val install = ScalaInstall( zincScalaInstallTitle, detector, defineResponse ).withTitleDigest
+      val entry = Entry( install, Record.from( resolveKey, defineResponse ) )
+      memory.put( resolveKey, entry )
+      install
+    }
+  }
+
+}
+
+object Resolve {
+
+  /**
+   * Resolution scope of Scala installation dependencies.
+   */
+  val resolveScope = "compile"
+
+  /**
+   * Repository session data key for the session resolution memory.
+   */
+  val sessionKey = "scalor-zinc-resolve-memory"
+
+  /**
+   * Resolved installation with artifact stamps.
+   */
+  case class Entry(
+    install : ScalaInstall,
+    record :  Record
+  ) {
+    def hasCurrent = record.hasCurrent
+  }
+
+  /**
+   * Artifact file state at resolution time.
+   */
+  case class Stamp(
+    path :     String,
+    size :     Long,
+    modified : Long
+  ) {
+    def hasCurrent = {
+      val file = new File( path )
+      file.isFile && file.length == size && file.lastModified == modified
+    }
+  }
+
+  object Stamp {
+    def from( file : File ) = Stamp( file.getCanonicalPath, file.length, file.lastModified )
+  }
+
+  /**
+   * Resolved artifact coordinates.
+   */
+  case class Coordinate(
+    groupId :    String,
+    artifactId : String,
+    version :    String,
+    classifier : String,
+    typeName :   String,
+    scope :      String,
+    stamp :      Stamp
+  ) {
+    def artifact : Artifact = {
+      val artifact = new DefaultArtifact(
+        groupId, artifactId, version, scope, typeName,
+        if ( classifier.isEmpty ) null else classifier,
+        new DefaultArtifactHandler( typeName )
+      )
+      artifact.setFile( new File( stamp.path ) )
+      artifact
+    }
+  }
+
+  object Coordinate {
+    def from( artifact : Artifact ) = {
+      import artifact._
+      Coordinate(
+        getGroupId, getArtifactId, getVersion,
+        Option( getClassifier ).getOrElse( "" ), getType,
+        Option( getScope ).getOrElse( "" ), Stamp.from( getFile )
+      )
+    }
+  }
+
+  /**
+   * Persisted resolution result.
+   *
+   * @param key - resolution request identity
+   */
+  case class Record(
+    key :              String,
+    defineBridge :     Seq[ Coordinate ],
+    defineCompiler :   Seq[ Coordinate ],
+    definePluginList : Seq[ Coordinate ]
+  ) {
+
+    def coordinateList = defineBridge ++ defineCompiler ++ definePluginList
+
+    def hasCurrent = coordinateList.forall( _.stamp.hasCurrent )
+
+    def response = base.Params.DefineResponse(
+      defineBridge.map( _.artifact ),
+      defineCompiler.map( _.artifact ),
+      definePluginList.map( _.artifact )
+    )
+
+  }
 
-    val install = ScalaInstall( zincScalaInstallTitle, detector, defineResponse ).withTitleDigest
+  object Record {
+    def from( key : String, response : base.Params.DefineResponse ) = {
+      import response._
+      Record(
+        key,
+        defineBridge.map( Coordinate.from( _ ) ),
+        defineCompiler.map( Coordinate.from( _ ) ),
+        definePluginList.map( Coordinate.from( _ ) )
+      )
+    }
+  }
 
-    install
+  /**
+   * Persisted resolution format.
+   */
+  object Codec {
+    import upickle._
+    import upickle.default._
+    implicit def stampCodec : ReadWriter[ Stamp ] = macroRW
+    implicit def coordinateCodec : ReadWriter[ Coordinate ] = macroRW
+    implicit def recordCodec : ReadWriter[ Record ] = macroRW
+    def parse( text : String ) : Record = read[ Record ]( text )
+    def unparse( record : Record ) : String = write( record )
+  }
+
+  def loadRecord( file : File ) : Option[ Record ] = {
+    if ( file != null && file.isFile ) {
+      Try( Codec.parse( loadString( file ) ) ).toOption
+    } else {
+      None
+    }
+  }
+
+  def saveRecord( file : File, record : Record ) : Unit = {
+    if ( file != null ) {
+      ensureParent( file )
+      persistString( file, Codec.unparse( record ) )
+    }
+  }
+
+  /**
+   * Resolution request identity: installation title, module detector,
+   * declared dependencies with exclusions, resolution scope.
+   */
+  def keyFrom(
+    title :    String,
+    detector : Module.Detector,
+    define :   base.Params.DefineRequest,
+    scope :    String
+  ) : String = {
+    def render( list : Seq[ Dependency ] ) = list.map { dependency =>
+      import dependency._
+      val exclusions = getExclusions.asScala.map( entry => s"${entry.getGroupId}:${entry.getArtifactId}" )
+      s"${getGroupId}:${getArtifactId}:${getVersion}:${getType}:${getClassifier}:${getScope}:${isOptional}" +
+        exclusions.mkString( "[", ",", "]" )
+    }.mkString( "(", ";", ")" )
+    import define._
+    Seq(
+      title, detector.toString, scope,
+      render( defineBridge ), render( defineCompiler ), render( definePluginList )
+    ).mkString( "|" )
+  }
+
+  /**
+   * Resolution memory shared by all projects of the build session.
+   */
+  def sessionMemory( repoSession : org.eclipse.aether.RepositorySystemSession ) : TrieMap[ String, Entry ] = {
+    val data = repoSession.getData
+    data.set( sessionKey, null, TrieMap[ String, Entry ]() )
+    data.get( sessionKey ).asInstanceOf[ TrieMap[ String, Entry ] ]
   }
 
 }
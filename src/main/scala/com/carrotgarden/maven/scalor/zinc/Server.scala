@@ -1,10 +1,591 @@
 package com.carrotgarden.maven.scalor.zinc
 
+import java.io.BufferedReader
+import java.io.BufferedWriter
+import java.io.File
+import java.io.InputStreamReader
+import java.io.OutputStreamWriter
+import java.net.InetAddress
+import java.net.InetSocketAddress
+import java.net.ServerSocket
+import java.net.Socket
+import java.net.SocketTimeoutException
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.FileSystems
+import java.nio.file.StandardCopyOption
+import java.nio.file.StandardOpenOption
+import java.nio.file.attribute.PosixFilePermissions
+import java.security.SecureRandom
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+import scala.collection.JavaConverters._
+import scala.util.Try
+
+import com.carrotgarden.maven.scalor.base
+import com.carrotgarden.maven.scalor.util.Error.Throw
+import com.carrotgarden.maven.scalor.util.Folder._
+import com.carrotgarden.maven.scalor.util.Logging.AnyLog
+
+import sbt.internal.inc.AnalyzingCompiler
+import sbt.internal.inc.ScalaInstance
+import sbt.internal.inc.classpath.ClasspathUtilities
+import sbt.util.Level
+import xsbti.compile.ClasspathOptionsUtil
+import xsbti.compile.CompileOrder
+import xsbti.compile.ZincCompilerUtil
+
 /**
  * Zinc compilation server.
+ *
+ * Hands incremental compiler invocation to a long-lived local daemon JVM,
+ * which keeps compiler class loaders and JIT state warm between builds.
  */
 trait Server {
 
-  // TODO
+  self : Compiler with Resolve with base.Logging =>
+
+  import Server._
+
+  /**
+   * Use compilation server only for command line builds.
+   */
+  def hasServerCompile : Boolean = {
+    zincServerEnable && !hasEclipseSession
+  }
+
+  /**
+   * Server JVM class path: this plugin with dependencies.
+   */
+  def zincServerClassPath : Seq[ File ] = {
+    val artifactList = pluginMeta.getPluginArtifact +: pluginMeta.getArtifacts.asScala
+    artifactList.map( _.getFile ).filter( _ != null ).map( _.getCanonicalFile ).distinct
+  }
+
+  /**
+   * Server JVM launch command.
+   */
+  def zincServerCommand( stateFolder : File ) : Seq[ String ] = {
+    val javaExec = new File( System.getProperty( "java.home" ), "bin/java" ).getCanonicalPath
+    val classPath = zincServerClassPath.mkString( File.pathSeparator )
+    Seq( javaExec ) ++ parseCommonList( zincServerJvmOptions ) ++ Seq(
+      "-cp", classPath, ServerMain.getClass.getName.stripSuffix( "$" ),
+      stateFolder.getCanonicalPath, zincServerIdleTimeout.toString, pluginMeta.getVersion
+    )
+  }
+
+  /**
+   * Invoke Zinc incremental compiler in the compilation server.
+   */
+  def zincServerCompile() : Unit = {
+    // Compiler class loaders are created only in the server.
+    val setup = new Setup; import setup._
+
+    // Remote invocation arguments.
+    val request = Request(
+      token         = "",
+      version       = pluginMeta.getVersion,
+      install       = Install(
+        identity     = compilerInstall.title,
+        scalaVersion = compilerInstall.version.unparse,
+        libraryJar   = Module.fileFrom( compilerInstall.library ).getCanonicalPath,
+        compilerJar  = Module.fileFrom( compilerInstall.compiler ).getCanonicalPath,
+        compilerJars = compilerClassPath.map( _.getCanonicalPath ).toSeq,
+        bridgeJar    = bridgeJar.getCanonicalPath
+      ),
+      classPath     = buildClassPath.map( _.getCanonicalPath ).toSeq,
+      sources       = buildSources.map( _.getCanonicalPath ).toSeq,
+      outputFolder  = buildOutputFolder.getCanonicalPath,
+      cacheFile     = buildCacheFile.getCanonicalPath,
+      storeType     = zincStateStoreType,
+      scalacOptions = scalacOptions.toSeq,
+      javacOptions  = javacOptions.toSeq,
+      compileOrder  = compileOrder.name,
+      maxErrors     = maxErrors,
+      limits        = Limits(
+        loader  = zincLoaderCacheLimit,
+        lookup  = zincLookupCacheLimit,
+        globals = zincCompilerCacheLimit,
+        storage = zincStateCacheLimit
+      ),
+      classIndex    = if ( zincClassIndexEnable ) zincClassIndexFile.getCanonicalPath else "",
+      metricsReport = if ( zincLogCompilerMetrics ) zincCompilerMetricsReport.getCanonicalPath else "",
+      logLevel      = zincLoggerLevel.toString,
+      progressUnit  = zincLogProgressUnit,
+      progressRate  = zincLogProgressRate
+    )
+
+    val stateFolder = zincServerStateFolder.getCanonicalFile
+    val launch = () => zincServerCommand( stateFolder )
+    val timeout = zincServerLaunchTimeout * 1000L
+
+    logger.info( s"Invoking Zinc server: ${compilerInstall.identity}" )
+
+    Client.invoke( stateFolder, request, launch, timeout, logger )
+
+  }
+
+}
+
+object Server {
+
+  /**
+   * Server address file in the server state folder.
+   */
+  val addressName = "server.json"
+
+  /**
+   * File system supports owner-only file permissions.
+   */
+  def hasPosix : Boolean = FileSystems.getDefault.supportedFileAttributeViews.contains( "posix" )
+
+  /**
+   * Server console output file in the server state folder.
+   */
+  val consoleName = "server.log"
+
+  /**
+   * Remote message kinds.
+   */
+  object Kind {
+    val dbug = "dbug"
+    val info = "info"
+    val warn = "warn"
+    val fail = "fail"
+    val done = "done"
+    val error = "error"
+  }
+
+  /**
+   * Published server location.
+   *
+   * @param port - loopback server port
+   * @param token - shared secret required from clients
+   * @param version - plugin version of the server
+   */
+  case class Address(
+    port :    Int,
+    token :   String,
+    version : String
+  )
+
+  /**
+   * Remote compiler installation.
+   */
+  case class Install(
+    identity :     String,
+    scalaVersion : String,
+    libraryJar :   String,
+    compilerJar :  String,
+    compilerJars : Seq[ String ],
+    bridgeJar :    String
+  )
+
+  /**
+   * Remote cache size limits.
+   */
+  case class Limits(
+    loader :  Int,
+    lookup :  Int,
+    globals : Int,
+    storage : Int
+  )
+
+  /**
+   * Remote compilation request, mirrors [[Compiler.Invocation]].
+   */
+  case class Request(
+    token :         String,
+    version :       String,
+    install :       Install,
+    classPath :     Seq[ String ],
+    sources :       Seq[ String ],
+    outputFolder :  String,
+    cacheFile :     String,
+    storeType :     String,
+    scalacOptions : Seq[ String ],
+    javacOptions :  Seq[ String ],
+    compileOrder :  String,
+    maxErrors :     Int,
+    limits :        Limits,
+    classIndex :    String,
+    metricsReport : String,
+    logLevel :      String,
+    progressUnit :  Boolean,
+    progressRate :  Boolean
+  )
+
+  /**
+   * Remote log or result message, one per line.
+   */
+  case class Message(
+    kind : String,
+    text : String
+  )
+
+  /**
+   * Server wire format.
+   */
+  object Codec {
+    import upickle._
+    import upickle.default._
+    implicit def addressCodec : ReadWriter[ Address ] = macroRW
+    implicit def installCodec : ReadWriter[ Install ] = macroRW
+    implicit def limitsCodec : ReadWriter[ Limits ] = macroRW
+    implicit def requestCodec : ReadWriter[ Request ] = macroRW
+    implicit def messageCodec : ReadWriter[ Message ] = macroRW
+    def parseAddress( text : String ) : Address = read[ Address ]( text )
+    def unparseAddress( address : Address ) : String = write( address )
+    def parseRequest( text : String ) : Request = read[ Request ]( text )
+    def unparseRequest( request : Request ) : String = write( request )
+    def parseMessage( text : String ) : Message = read[ Message ]( text )
+    def unparseMessage( message : Message ) : String = write( message )
+  }
+
+  def newReader( socket : Socket ) = new BufferedReader(
+    new InputStreamReader( socket.getInputStream, StandardCharsets.UTF_8 )
+  )
+
+  def newWriter( socket : Socket ) = new BufferedWriter(
+    new OutputStreamWriter( socket.getOutputStream, StandardCharsets.UTF_8 )
+  )
+
+  /**
+   * Compilation server client.
+   */
+  object Client {
+
+    /**
+     * Read published server address, if any.
+     */
+    def readAddress( stateFolder : File ) : Option[ Address ] = {
+      val addressFile = new File( stateFolder, addressName )
+      if ( addressFile.isFile ) {
+        Try( Codec.parseAddress( loadString( addressFile ) ) ).toOption
+      } else {
+        None
+      }
+    }
+
+    /**
+     * Connect to a running server of matching version.
+     */
+    def connect( stateFolder : File, version : String ) : Option[ ( Socket, Address ) ] = {
+      readAddress( stateFolder ).filter( _.version == version ).flatMap { address =>
+        Try {
+          val socket = new Socket()
+          socket.connect( new InetSocketAddress( InetAddress.getLoopbackAddress, address.port ), 1000 )
+          ( socket, address )
+        }.toOption
+      }
+    }
+
+    /**
+     * Connect to a running server, launch new server when missing.
+     */
+    def provide(
+      stateFolder : File,
+      version :     String,
+      launch :      () => Seq[ String ],
+      timeout :     Long,
+      logger :      AnyLog
+    ) : ( Socket, Address ) = synchronized {
+      connect( stateFolder, version ).getOrElse {
+        ensureFolder( stateFolder )
+        val command = launch()
+        logger.info( s"Launching Zinc server: ${stateFolder}" )
+        logger.dbug( s"Zinc server command: ${command.mkString( " " )}" )
+        val consoleFile = new File( stateFolder, consoleName )
+        val process = new ProcessBuilder( command : _* )
+          .directory( stateFolder )
+          .redirectErrorStream( true )
+          .redirectOutput( ProcessBuilder.Redirect.appendTo( consoleFile ) )
+          .start()
+        process.getOutputStream.close()
+        val deadline = System.currentTimeMillis + timeout
+        var result = connect( stateFolder, version )
+        while ( result.isEmpty ) {
+          if ( !process.isAlive ) {
+            Throw( s"Zinc server exit: ${process.exitValue}, review ${consoleFile}" )
+          }
+          if ( System.currentTimeMillis > deadline ) {
+            Throw( s"Zinc server launch timeout, review ${consoleFile}" )
+          }
+          Thread.sleep( 100 )
+          result = connect( stateFolder, version )
+        }
+        result.get
+      }
+    }
+
+    /**
+     * Send compilation request, relay server log, report result.
+     */
+    def invoke(
+      stateFolder : File,
+      request :     Request,
+      launch :      () => Seq[ String ],
+      timeout :     Long,
+      logger :      AnyLog
+    ) : Unit = {
+      val ( socket, address ) = provide( stateFolder, request.version, launch, timeout, logger )
+      try {
+        val writer = newWriter( socket )
+        writer.write( Codec.unparseRequest( request.copy( token = address.token ) ) )
+        writer.newLine()
+        writer.flush()
+        val reader = newReader( socket )
+        var line = reader.readLine()
+        while ( line != null ) {
+          val message = Codec.parseMessage( line )
+          message.kind match {
+            case Kind.dbug  => logger.dbug( message.text )
+            case Kind.info  => logger.info( message.text )
+            case Kind.warn  => logger.warn( message.text )
+            case Kind.fail  => logger.fail( message.text )
+            case Kind.done  => return
+            case Kind.error => Throw( s"Zinc server failure: ${message.text}" )
+            case _          => logger.fail( s"Zinc server protocol: ${line}" )
+          }
+          line = reader.readLine()
+        }
+        Throw( s"Zinc server connection lost, review ${new File( stateFolder, consoleName )}" )
+      } finally {
+        Try( socket.close() )
+      }
+    }
+
+  }
+
+  /**
+   * Relay compiler logging to the client.
+   */
+  case class RemoteLog( writer : BufferedWriter ) extends AnyLog {
+    override val founder = this
+    override val context = "zinc-server"
+    override def text( line : String ) = line
+    def send( kind : String, line : String ) : Unit = writer.synchronized {
+      writer.write( Codec.unparseMessage( Message( kind, line ) ) )
+      writer.newLine()
+      writer.flush()
+    }
+    override def dbug( line : String ) = send( Kind.dbug, line )
+    override def info( line : String ) = send( Kind.info, line )
+    override def warn( line : String ) = send( Kind.warn, line )
+    override def fail( line : String ) = send( Kind.fail, line )
+    override def fail( line : String, error : Throwable ) = send( Kind.fail, s"${line}: ${error}" )
+  }
+
+  /**
+   * Compilation server process.
+   *
+   * @param stateFolder - location of address and console files
+   * @param idleTimeout - shutdown delay after last request, seconds
+   * @param version - plugin version of the server
+   */
+  case class Daemon(
+    stateFolder : File,
+    idleTimeout : Long,
+    version :     String
+  ) {
+
+    val token = {
+      val bytes = new Array[ Byte ]( 16 )
+      new SecureRandom().nextBytes( bytes )
+      bytes.map( "%02x".format( _ ) ).mkString
+    }
+
+    val activeCount = new AtomicInteger( 0 )
+    val activeStamp = new AtomicLong( System.currentTimeMillis )
+
+    /**
+     * Serialize compilations of the same state file.
+     */
+    val cacheLocks = new ConcurrentHashMap[ String, Object ]()
+
+    val executor = Executors.newCachedThreadPool()
+
+    def hasIdle = {
+      activeCount.get == 0 &&
+        System.currentTimeMillis - activeStamp.get > idleTimeout * 1000L
+    }
+
+    def report( line : String ) : Unit = {
+      println( s"${new java.util.Date} ${line}" )
+    }
+
+    /**
+     * Publish server address for the clients.
+     */
+    def persistAddress( port : Int ) : Unit = {
+      val addressFile = new File( stateFolder, addressName )
+      // Owner-only from creation, since address carries the access token.
+      val tempPath = if ( hasPosix ) {
+        val ownerOnly = PosixFilePermissions.asFileAttribute( PosixFilePermissions.fromString( "rw-------" ) )
+        Files.createTempFile( stateFolder.toPath, addressName + ".", ".tmp", ownerOnly )
+      } else {
+        val tempPath = Files.createTempFile( stateFolder.toPath, addressName + ".", ".tmp" )
+        val tempFile = tempPath.toFile
+        Try( tempFile.setReadable( false, false ) && tempFile.setReadable( true, true ) )
+        Try( tempFile.setWritable( false, false ) && tempFile.setWritable( true, true ) )
+        tempPath
+      }
+      try {
+        val content = Codec.unparseAddress( Address( port, token, version ) ).getBytes( StandardCharsets.UTF_8 )
+        Files.write( tempPath, content, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING )
+        Files.move( tempPath, addressFile.toPath,
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE )
+      } finally {
+        Try( Files.deleteIfExists( tempPath ) )
+      }
+    }
+
+    /**
+     * Remove server address, unless replaced by another server.
+     */
+    def removeAddress() : Unit = {
+      Client.readAddress( stateFolder ).filter( _.token == token ).foreach { _ =>
+        Try( new File( stateFolder, addressName ).delete() )
+      }
+    }
+
+    def run() : Unit = {
+      ensureFolder( stateFolder )
+      val server = new ServerSocket( 0, 50, InetAddress.getLoopbackAddress )
+      server.setSoTimeout( 1000 )
+      persistAddress( server.getLocalPort )
+      report( s"Server start: port=${server.getLocalPort} version=${version}" )
+      try {
+        while ( !hasIdle ) {
+          try {
+            val socket = server.accept()
+            activeCount.incrementAndGet()
+            executor.execute( new Runnable {
+              override def run() : Unit = {
+                try {
+                  serve( socket )
+                } finally {
+                  activeStamp.set( System.currentTimeMillis )
+                  activeCount.decrementAndGet()
+                }
+              }
+            } )
+          } catch {
+            case error : SocketTimeoutException =>
+          }
+        }
+      } finally {
+        Try( Storage.flush() ).failed.foreach { error =>
+          report( s"Server stop: ${error.getMessage} ${error.getCause}" )
+        }
+        removeAddress()
+        Try( server.close() )
+        executor.shutdown()
+        report( s"Server stop: idle timeout ${idleTimeout} sec" )
+      }
+    }
+
+    /**
+     * Process single client request.
+     */
+    def serve( socket : Socket ) : Unit = {
+      try {
+        val reader = newReader( socket )
+        val writer = newWriter( socket )
+        val log = RemoteLog( writer )
+        val request = Codec.parseRequest( reader.readLine() )
+        if ( request.token != token ) {
+          report( "Request reject: invalid token" )
+          log.send( Kind.error, "Invalid token" )
+          return
+        }
+        val lock = cacheLocks.computeIfAbsent( request.cacheFile, _ => new Object )
+        try {
+          lock.synchronized {
+            invokeIncremental( request, log )
+          }
+          log.send( Kind.done, request.cacheFile )
+        } catch {
+          case error : Throwable =>
+            val message = Option( error.getMessage ).getOrElse( error.toString )
+            report( s"Request failure: ${request.outputFolder}: ${message}" )
+            Try( log.send( Kind.error, message ) )
+        }
+      } catch {
+        case error : Throwable =>
+          report( s"Connection failure: ${error}" )
+      } finally {
+        Try( socket.close() )
+      }
+    }
+
+    /**
+     * Invoke Zinc incremental compiler in this JVM.
+     */
+    def invokeIncremental( request : Request, log : AnyLog ) : Unit = {
+      import request._
+      import request.install._
+
+      val compilerClassPath = compilerJars.map( new File( _ ) )
+      val loaderEntry = Loader.provideEntry( identity, compilerClassPath, limits.loader, log )
+
+      val scalaInstance = new ScalaInstance(
+        version           = scalaVersion,
+        loader            = loaderEntry.compilerLoader,
+        loaderLibraryOnly = ClasspathUtilities.rootLoader,
+        libraryJar        = new File( libraryJar ),
+        compilerJar       = new File( compilerJar ),
+        allJars           = compilerClassPath.toArray,
+        explicitActual    = Some( scalaVersion )
+      )
+
+      val bridgeProvider = ZincCompilerUtil.constantBridgeProvider( scalaInstance, new File( bridgeJar ) )
+
+      val scalaCompiler = new AnalyzingCompiler(
+        scalaInstance    = scalaInstance,
+        provider         = bridgeProvider,
+        classpathOptions = ClasspathOptionsUtil.auto,
+        onArgsHandler = _ => (),
+        classLoaderCache = Some( loaderEntry.bridgeCache )
+      )
+
+      val cologger = Logging.Logger( log, Level( logLevel ).getOrElse( Level.Debug ) )
+
+      val cacheFile = new File( request.cacheFile )
+      val stateType = Compiler.storeType( storeType ) match {
+        case Compiler.Store.Unknown => Compiler.Store.Binary
+        case known                  => known
+      }
+
+      val invocation = Compiler.Invocation(
+        scalaInstance = scalaInstance,
+        scalaCompiler = scalaCompiler,
+        classPath     = classPath.map( new File( _ ) ).toArray,
+        sources       = sources.map( new File( _ ) ).toArray,
+        outputFolder  = new File( outputFolder ),
+        cacheFile     = cacheFile,
+        stateStore    = Storage.provideStore( cacheFile, Compiler.storeFrom( _, stateType ), limits.storage, true, log ),
+        scalacOptions = scalacOptions.toArray,
+        javacOptions  = javacOptions.toArray,
+        compileOrder  = CompileOrder.valueOf( compileOrder ),
+        maxErrors     = maxErrors,
+        lookupLimit   = limits.lookup,
+        classIndex    = Some( request.classIndex ).filter( _.nonEmpty ).map( new File( _ ) ),
+        metricsReport = Some( request.metricsReport ).filter( _.nonEmpty ).map( new File( _ ) ),
+        sourceChanges = None,
+        compilerCache = Globals.provideCache( limits.globals, true ),
+        logger        = cologger,
+        reporter      = Logging.Reporter( maxErrors, cologger ),
+        progress      = Logging.Progress( log, progressUnit, progressRate )
+      )
+
+      Compiler.invokeIncremental( invocation )
+      // Report success to client only for persisted analysis.
+      Storage.flush( cacheFile )
+    }
 
+  }
 }
@@ -0,0 +1,23 @@
+package com.carrotgarden.maven.scalor.zinc
+
+import java.io.File
+
+import scala.util.Try
+
+/**
+ * Zinc compilation server launcher, see [[Server]].
+ */
+object ServerMain {
+
+  /**
+   * Server entry point: [state-folder] [idle-timeout-seconds] [version]
+   */
+  def main( args : Array[ String ] ) : Unit = {
+    val Array( stateFolder, idleTimeout, version ) = args
+    // Survive terminal interrupt sent to the launching build.
+    Try( sun.misc.Signal.handle( new sun.misc.Signal( "INT" ), sun.misc.SignalHandler.SIG_IGN ) )
+    Server.Daemon( new File( stateFolder ), idleTimeout.toLong, version ).run()
+    sys.exit( 0 )
+  }
+
+}
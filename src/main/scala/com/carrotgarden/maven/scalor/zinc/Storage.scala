@@ -0,0 +1,243 @@
+package com.carrotgarden.maven.scalor.zinc
+
+import java.io.File
+import java.nio.channels.FileChannel
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.nio.file.StandardOpenOption
+import java.util.Optional
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+import scala.util.Try
+
+import com.carrotgarden.maven.scalor.util.Cache
+import com.carrotgarden.maven.scalor.util.Logging.AnyLog
+
+import sbt.util.InterfaceUtil
+import xsbti.compile.AnalysisContents
+import xsbti.compile.AnalysisStore
+
+/**
+ * JVM-wide in-memory analysis cache with optional asynchronous write-behind.
+ *
+ * Serves analysis reads from memory for repeated builds in M2E and in [[Server]],
+ * persists analysis via temp file, fsync and atomic rename,
+ * so that state file is never observed partially written.
+ * With write-behind, analysis is persisted on a single background writer thread,
+ * a failed write is reported on the next use of the same state file or on [[flush]],
+ * and pending writes are drained on JVM shutdown.
+ */
+object Storage {
+
+  /**
+   * Cached analysis of a state file.
+   *
+   * @param content - last known analysis
+   * @param stamp - state file modification time matching the content
+   * @param pending - content is not yet persisted
+   */
+  case class Entry(
+    content : AnalysisContents,
+    stamp :   Long,
+    pending : Boolean
+  )
+
+  /**
+   * Cached analysis, keyed by canonical state file path.
+   */
+  val entryCache = new Cache[ String, Entry ]( limit = 0 )
+
+  /**
+   * Failed write-behind, keyed by canonical state file path, reported once.
+   */
+  val failureMap = new ConcurrentHashMap[ String, Throwable ]()
+
+  /**
+   * Last submitted write-behind, keyed by canonical state file path.
+   */
+  val pendingMap = new ConcurrentHashMap[ String, Future[ _ ] ]()
+
+  private val hasLimit = new AtomicBoolean()
+
+  /**
+   * Apply memory cache size limit once per JVM: first configuring execution wins,
+   * so that builds sharing the JVM do not evict each other's analysis.
+   */
+  def configure( limit : Int ) : Unit = {
+    if ( hasLimit.compareAndSet( false, true ) ) {
+      entryCache.resize( limit )
+    }
+  }
+
+  def keyFrom( file : File ) : String = file.getCanonicalPath
+
+  def failureFrom( key : String, error : Throwable ) : RuntimeException = {
+    new RuntimeException( s"Analysis persist failure: ${key}", error )
+  }
+
+  /**
+   * Fail with pending write-behind failure of a state file.
+   */
+  def reportFailure( key : String ) : Unit = {
+    val error = failureMap.remove( key )
+    if ( error != null ) {
+      throw failureFrom( key, error )
+    }
+  }
+
+  /**
+   * Single writer preserves write order per state file.
+   */
+  lazy val writer = {
+    val executor = Executors.newSingleThreadExecutor( new ThreadFactory {
+      override def newThread( task : Runnable ) = {
+        val thread = new Thread( task, "scalor-zinc-storage" )
+        thread.setDaemon( true )
+        thread
+      }
+    } )
+    Runtime.getRuntime.addShutdownHook( new Thread( "scalor-zinc-storage-flush" ) {
+      override def run() : Unit = {
+        executor.shutdown()
+        executor.awaitTermination( 60, TimeUnit.SECONDS )
+      }
+    } )
+    executor
+  }
+
+  /**
+   * Wait for completion of all pending writes, fail with any unreported write failure.
+   */
+  def flush() : Unit = {
+    writer.submit( new Runnable { override def run() : Unit = () } ).get()
+    val keyList = failureMap.keySet.toArray( Array[ String ]() ).sorted
+    keyList.foreach( reportFailure )
+  }
+
+  /**
+   * Wait for completion of pending writes of a state file, fail with its write failure.
+   */
+  def flush( cacheFile : File ) : Unit = {
+    val key = keyFrom( cacheFile )
+    val pending = pendingMap.remove( key )
+    if ( pending != null ) {
+      pending.get()
+    }
+    reportFailure( key )
+  }
+
+  /**
+   * Provide analysis store with memory cache and write-behind,
+   * or plain file store when cache is disabled.
+   *
+   * @param cacheFile - analysis state file
+   * @param storeFrom - file store producer for the store type
+   * @param limit - maximum number of retained analysis
+   * @param writeBehind - persist analysis asynchronously, for repeated builds in the same JVM
+   * @param logger - reports write-behind failures
+   */
+  def provideStore(
+    cacheFile :   File,
+    storeFrom :   File => AnalysisStore,
+    limit :       Int,
+    writeBehind : Boolean,
+    logger :      AnyLog
+  ) : AnalysisStore = {
+    configure( limit )
+    if ( limit > 0 ) {
+      MemoryStore( cacheFile, storeFrom, writeBehind, logger )
+    } else {
+      storeFrom( cacheFile )
+    }
+  }
+
+  /**
+   * Analysis store backed by memory cache and file store.
+   */
+  case class MemoryStore(
+    cacheFile :   File,
+    storeFrom :   File => AnalysisStore,
+    writeBehind : Boolean,
+    logger :      AnyLog
+  ) extends AnalysisStore {
+
+    val key = keyFrom( cacheFile )
+
+    /**
+     * Memory content is valid while pending or while file is unchanged.
+     */
+    def hasCurrent( entry : Entry ) : Boolean = {
+      entry.pending || ( cacheFile.exists && cacheFile.lastModified == entry.stamp )
+    }
+
+    override def get() : Optional[ AnalysisContents ] = {
+      reportFailure( key )
+      entryCache.get( key ) match {
+        case Some( entry ) if hasCurrent( entry ) =>
+          Optional.of( entry.content )
+        case _ =>
+          entryCache.remove( key )
+          val stamp = cacheFile.lastModified
+          val content = storeFrom( cacheFile ).get()
+          InterfaceUtil.toOption( content ).foreach { content =>
+            entryCache.put( key, Entry( content, stamp, false ) )
+          }
+          content
+      }
+    }
+
+    override def set( content : AnalysisContents ) : Unit = {
+      reportFailure( key )
+      entryCache.put( key, Entry( content, 0L, true ) )
+      if ( writeBehind ) {
+        val pending = writer.submit( new Runnable {
+          override def run() : Unit = persist( content )
+        } )
+        pendingMap.put( key, pending )
+      } else {
+        persist( content )
+        reportFailure( key )
+      }
+    }
+
+    /**
+     * Persist analysis: write temp, fsync, rename.
+     */
+    def persist( content : AnalysisContents ) : Unit = {
+      val folder = cacheFile.getParentFile
+      if ( !folder.isDirectory ) {
+        // State removed by clean.
+        entryCache.remove( key )
+        return
+      }
+      val tempFile = File.createTempFile( cacheFile.getName + ".", ".tmp", folder )
+      try {
+        storeFrom( tempFile ).set( content )
+        val channel = FileChannel.open( tempFile.toPath, StandardOpenOption.WRITE )
+        try channel.force( true ) finally channel.close()
+        Files.move( tempFile.toPath, cacheFile.toPath,
+          StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE )
+        entryCache.get( key ).filter( _.content eq content ).foreach { entry =>
+          entryCache.put( key, Entry( content, cacheFile.lastModified, false ) )
+        }
+      } catch {
+        case error : Throwable =>
+          // Force reload from file on next read.
+          entryCache.remove( key )
+          failureMap.put( key, error )
+          if ( writeBehind ) {
+            Try( logger.fail( s"Analysis persist failure: ${cacheFile}", error ) )
+          }
+      } finally {
+        Try( Files.deleteIfExists( tempFile.toPath ) )
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,302 @@
+package com.carrotgarden.maven.scalor.zinc
+
+import java.io.BufferedOutputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.nio.file.StandardOpenOption
+import java.util.Arrays
+import java.util.Optional
+import java.util.zip.Deflater
+import java.util.zip.Inflater
+
+import scala.util.Try
+
+import com.google.protobuf.CodedInputStream
+import com.google.protobuf.CodedOutputStream
+
+import sbt.internal.inc.FileAnalysisStore
+import sbt.internal.inc.binary.BinaryAnalysisFormat
+import xsbti.compile.AnalysisContents
+import xsbti.compile.AnalysisStore
+import xsbti.compile.analysis.ReadWriteMappers
+
+/**
+ * Additional analysis file store layouts.
+ *
+ * Both layouts use Zinc protobuf analysis format in two sections,
+ * analysis with setup and API companions, as Zinc binary store does,
+ * but without zip container:
+ * <pre>
+ * compact - sections deflated at fastest level
+ * mapped  - sections stored raw, read without decompression from a single heap buffer
+ * </pre>
+ * File layout: magic, layout, section count, then for each section:
+ * raw length, stored length, stored bytes.
+ */
+object Stores {
+
+  val magic = "SCALOR-Z".getBytes( StandardCharsets.US_ASCII )
+
+  /**
+   * Layout identifiers in the file header.
+   */
+  object Layout {
+    val Compact = 1
+    val Mapped = 2
+  }
+
+  val headerSize = magic.length + 4 + 4
+
+  /**
+   * Zip container signature of Zinc text and binary stores.
+   */
+  val zipMagic = Array[ Byte ]( 'P', 'K', 3, 4 )
+
+  def newFormat = new BinaryAnalysisFormat( ReadWriteMappers.getEmptyMappers )
+
+  /**
+   * Serialize analysis into protobuf sections.
+   */
+  def encodeSections( content : AnalysisContents ) : Array[ Array[ Byte ] ] = {
+    val format = newFormat
+    val analysis = content.getAnalysis
+    val setup = content.getMiniSetup
+    Array(
+      encode( output => format.write( output, analysis, setup ) ),
+      encode( output => format.writeAPIs( output, analysis ) )
+    )
+  }
+
+  def encode( write : CodedOutputStream => Unit ) : Array[ Byte ] = {
+    val buffer = new ByteArrayOutputStream( 64 * 1024 )
+    val output = CodedOutputStream.newInstance( buffer )
+    write( output )
+    output.flush()
+    buffer.toByteArray
+  }
+
+  /**
+   * Deserialize analysis from protobuf sections.
+   */
+  def decodeSections( sections : Seq[ CodedInputStream ] ) : AnalysisContents = {
+    val format = newFormat
+    val Seq( analysisInput, companionInput ) = sections
+    val ( analysis, setup ) = format.read( analysisInput )
+    val analysisWithAPIs = format.readAPIs( companionInput, analysis )
+    AnalysisContents.create( analysisWithAPIs, setup )
+  }
+
+  def deflate( source : Array[ Byte ] ) : Array[ Byte ] = {
+    val deflater = new Deflater( Deflater.BEST_SPEED, true )
+    try {
+      deflater.setInput( source )
+      deflater.finish()
+      val buffer = new ByteArrayOutputStream( source.length / 4 + 64 )
+      val chunk = new Array[ Byte ]( 64 * 1024 )
+      while ( !deflater.finished ) {
+        val count = deflater.deflate( chunk )
+        buffer.write( chunk, 0, count )
+      }
+      buffer.toByteArray
+    } finally {
+      deflater.end()
+    }
+  }
+
+  def inflate( source : Array[ Byte ], offset : Int, length : Int, rawLength : Int ) : Array[ Byte ] = {
+    val inflater = new Inflater( true )
+    try {
+      inflater.setInput( source, offset, length )
+      val target = new Array[ Byte ]( rawLength )
+      var count = 0
+      while ( count < rawLength && !inflater.finished ) {
+        val step = inflater.inflate( target, count, rawLength - count )
+        if ( step == 0 && ( inflater.needsInput || inflater.needsDictionary ) ) {
+          throw new IllegalStateException( "Truncated section" )
+        }
+        count += step
+      }
+      target
+    } finally {
+      inflater.end()
+    }
+  }
+
+  /**
+   * Read file header: layout identifier, if present.
+   */
+  def readLayout( file : File ) : Option[ Int ] = {
+    if ( !file.isFile || file.length < headerSize ) {
+      return None
+    }
+    val header = new Array[ Byte ]( headerSize )
+    val input = new FileInputStream( file )
+    try {
+      if ( input.read( header ) != headerSize ) {
+        return None
+      }
+    } finally {
+      input.close()
+    }
+    if ( Arrays.equals( Arrays.copyOf( header, magic.length ), magic ) ) {
+      Some( ByteBuffer.wrap( header, magic.length, 4 ).getInt )
+    } else {
+      None
+    }
+  }
+
+  /**
+   * Detect Zinc zip container.
+   */
+  def hasZip( file : File ) : Boolean = {
+    if ( !file.isFile || file.length < zipMagic.length ) {
+      return false
+    }
+    val header = new Array[ Byte ]( zipMagic.length )
+    val input = new FileInputStream( file )
+    try {
+      input.read( header ) == zipMagic.length && Arrays.equals( header, zipMagic )
+    } finally {
+      input.close()
+    }
+  }
+
+  /**
+   * Read whole file into memory via positional reads,
+   * file handle is released on return, so that the file can be replaced on all platforms.
+   */
+  def readBuffer( file : File ) : ByteBuffer = {
+    val channel = FileChannel.open( file.toPath, StandardOpenOption.READ )
+    try {
+      val size = channel.size
+      require( size <= Int.MaxValue, s"File too large: ${file}" )
+      val buffer = ByteBuffer.allocate( size.toInt )
+      while ( buffer.hasRemaining ) {
+        if ( channel.read( buffer, buffer.position ) < 0 ) {
+          throw new IllegalStateException( s"Truncated file: ${file}" )
+        }
+      }
+      buffer.flip()
+      buffer
+    } finally {
+      channel.close()
+    }
+  }
+
+  /**
+   * Analysis store in compact or mapped layout.
+   */
+  case class LayoutStore( file : File, layout : Int ) extends AnalysisStore {
+
+    override def get() : Optional[ AnalysisContents ] = {
+      if ( readLayout( file ) == Some( layout ) ) {
+        Try( read() ).map( Optional.of( _ ) ).getOrElse( Optional.empty[ AnalysisContents ] )
+      } else {
+        Optional.empty[ AnalysisContents ]
+      }
+    }
+
+    def read() : AnalysisContents = {
+      layout match {
+        case Layout.Compact => readCompact()
+        case Layout.Mapped  => readMapped()
+      }
+    }
+
+    def readCompact() : AnalysisContents = {
+      val source = Files.readAllBytes( file.toPath )
+      val buffer = ByteBuffer.wrap( source )
+      buffer.position( magic.length + 4 )
+      val count = buffer.getInt
+      val sections = ( 0 until count ).map { _ =>
+        val rawLength = buffer.getInt
+        val length = buffer.getInt
+        val offset = buffer.position
+        buffer.position( offset + length )
+        CodedInputStream.newInstance( inflate( source, offset, length, rawLength ) )
+      }
+      decodeSections( sections )
+    }
+
+    def readMapped() : AnalysisContents = {
+      val buffer = readBuffer( file )
+      buffer.position( magic.length + 4 )
+      val count = buffer.getInt
+      val sections = ( 0 until count ).map { _ =>
+        val rawLength = buffer.getInt
+        val length = buffer.getInt
+        val section = buffer.slice()
+        section.limit( length )
+        buffer.position( buffer.position + length )
+        CodedInputStream.newInstance( section )
+      }
+      decodeSections( sections )
+    }
+
+    override def set( content : AnalysisContents ) : Unit = {
+      val sections = encodeSections( content )
+      val tempFile = new File( file.getPath + ".tmp" )
+      val output = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( tempFile ), 64 * 1024 ) )
+      try {
+        output.write( magic )
+        output.writeInt( layout )
+        output.writeInt( sections.length )
+        sections.foreach { raw =>
+          val stored = if ( layout == Layout.Compact ) deflate( raw ) else raw
+          output.writeInt( raw.length )
+          output.writeInt( stored.length )
+          output.write( stored )
+        }
+      } finally {
+        output.close()
+      }
+      Files.move( tempFile.toPath, file.toPath, StandardCopyOption.REPLACE_EXISTING )
+    }
+
+  }
+
+  /**
+   * Analysis store which writes configured type
+   * and reads any known type, to migrate between types.
+   *
+   * @param file - analysis state file
+   * @param write - store for the configured type
+   */
+  case class MigrateStore( file : File, write : AnalysisStore ) extends AnalysisStore {
+
+    /**
+     * Select reader by file header.
+     */
+    def readerList : Seq[ AnalysisStore ] = {
+      readLayout( file ) match {
+        case Some( layout ) =>
+          Seq( LayoutStore( file, layout ) )
+        case None if hasZip( file ) =>
+          Seq( FileAnalysisStore.binary( file ), FileAnalysisStore.text( file ) )
+        case None =>
+          Seq()
+      }
+    }
+
+    override def get() : Optional[ AnalysisContents ] = {
+      val found = readerList.iterator
+        .map( store => Try( store.get() ).getOrElse( Optional.empty[ AnalysisContents ] ) )
+        .find( _.isPresent )
+      found.getOrElse( Optional.empty[ AnalysisContents ] )
+    }
+
+    override def set( content : AnalysisContents ) : Unit = {
+      write.set( content )
+    }
+
+  }
+
+}
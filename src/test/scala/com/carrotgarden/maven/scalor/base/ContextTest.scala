@@ -0,0 +1,61 @@
+package com.carrotgarden.maven.scalor.base
+
+import java.io.File
+import java.nio.file.Files
+
+import org.junit.jupiter.api._
+import org.junit.jupiter.api.Assertions._
+import org.junit.runner.RunWith
+import org.junit.platform.runner.JUnitPlatform
+import org.sonatype.plexus.build.incremental.DefaultBuildContext
+
+@RunWith( classOf[ JUnitPlatform ] )
+class ContextTest {
+
+  @Test
+  def updateResultFullBuild : Unit = {
+    val root = Files.createTempDirectory( "context" ).toFile
+    val folder = new File( root, "a/b" )
+    folder.mkdirs
+    Files.write( new File( folder, "C.sjsir" ).toPath, Array[ Byte ]( 1 ) )
+    Files.write( new File( folder, "C.class" ).toPath, Array[ Byte ]( 1 ) )
+
+    val regex = ".+[.]sjsir".r
+    val context = new DefaultBuildContext
+    val result = Context.updateResultFrom( context, false, root, regex )
+
+    // Same result as full build scanner.
+    val scanner = context.newScanner( root )
+    scanner.scan()
+    val expected = scanner.getIncludedFiles
+      .filter( regex.pattern.matcher( _ ).matches )
+      .map( path => new File( root, path ).getAbsoluteFile )
+    assertEquals( expected.toSeq, result.changed.toSeq )
+    assertEquals( 1, result.changed.length )
+    assertEquals( 0, result.deleted.length )
+  }
+
+  @Test
+  def includesFromRegex : Unit = {
+    assertEquals( Seq( "**/*.scala" ), Context.includesFrom( ".+[.]scala".r ).toSeq )
+    assertEquals( Seq( "**/*.sjsir" ), Context.includesFrom( """.*\.sjsir""".r ).toSeq )
+    assertEquals( Seq( "**/*.java", "**/*.scala" ), Context.includesFrom( ".+[.](java|scala)".r ).toSeq )
+    assertNull( Context.includesFrom( ".+".r ) )
+    assertNull( Context.includesFrom( "main/.+[.]scala".r ) )
+  }
+
+  @Test
+  def updateResultIncremental : Unit = {
+    val root = Files.createTempDirectory( "context" ).toFile
+    val folder = new File( root, "a/b" )
+    folder.mkdirs
+    Files.write( new File( folder, "C.sjsir" ).toPath, Array[ Byte ]( 1 ) )
+    Files.write( new File( folder, "C.class" ).toPath, Array[ Byte ]( 1 ) )
+
+    val context = new DefaultBuildContext
+    val result = Context.updateResultFrom( context, true, root, ".+[.]sjsir".r )
+    assertEquals( Seq( new File( folder, "C.sjsir" ).getAbsoluteFile ), result.changed.toSeq )
+    assertEquals( 0, result.deleted.length )
+  }
+
+}
@@ -0,0 +1,40 @@
+package com.carrotgarden.maven.scalor.base
+
+import java.io.File
+import java.nio.file.Files
+
+import org.junit.jupiter.api._
+import org.junit.jupiter.api.Assertions._
+import org.junit.runner.RunWith
+import org.junit.platform.runner.JUnitPlatform
+
+@RunWith( classOf[ JUnitPlatform ] )
+class WatchTest {
+
+  @Test
+  def snapshotUpdateResult : Unit = {
+    val root = Files.createTempDirectory( "watch" ).toFile
+    val fileA = new File( root, "a/A.sjsir" )
+    val fileB = new File( root, "b/B.sjsir" )
+    fileA.getParentFile.mkdirs
+    fileB.getParentFile.mkdirs
+    Files.write( fileA.toPath, Array[ Byte ]( 1 ) )
+    Files.write( fileB.toPath, Array[ Byte ]( 1 ) )
+    val regex = ".+[.]sjsir".r
+
+    val ( resultInit, snapshotInit ) = Watch.updateResultFrom( root, regex, Watch.Snapshot.empty )
+    assertEquals( 2, resultInit.changed.length )
+    assertEquals( 0, resultInit.deleted.length )
+
+    Files.write( fileA.toPath, Array[ Byte ]( 1, 2 ) )
+    Files.delete( fileB.toPath )
+    val ( resultNext, _ ) = Watch.updateResultFrom( root, regex, snapshotInit )
+    assertEquals( Seq( fileA.getAbsoluteFile ), resultNext.changed.toSeq )
+    assertEquals( Seq( fileB.getAbsoluteFile ), resultNext.deleted.toSeq )
+
+    assertFalse( Watch.hasActive )
+    assertTrue( Watch.activate( Watch.hasActive ) )
+    assertFalse( Watch.hasActive )
+  }
+
+}
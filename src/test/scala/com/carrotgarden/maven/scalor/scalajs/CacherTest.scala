@@ -0,0 +1,118 @@
+package com.carrotgarden.maven.scalor.scalajs
+
+import java.io.File
+import java.io.FileOutputStream
+import java.nio.file.Files
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+import org.junit.jupiter.api._
+import org.junit.jupiter.api.Assertions._
+import org.junit.runner.RunWith
+import org.junit.platform.runner.JUnitPlatform
+
+import org.scalajs.core.tools.io.VirtualBinaryFile
+
+import com.carrotgarden.maven.scalor.base.Context.UpdateResult
+
+@RunWith( classOf[ JUnitPlatform ] )
+class CacherTest {
+
+  def writeJar( jar : File, size : Int ) : Unit = {
+    val output = new ZipOutputStream( new FileOutputStream( jar ) )
+    try {
+      output.putNextEntry( new ZipEntry( "test/Main.sjsir" ) )
+      output.write( new Array[ Byte ]( size ) )
+      output.closeEntry()
+    } finally {
+      output.close()
+    }
+  }
+
+  @Test
+  def replaceRebuiltJar : Unit = {
+    val root = Files.createTempDirectory( "cacher" ).toFile
+    val jar = new File( root, "library.jar" )
+    val classpath = Array( jar )
+    val cacher = Cacher()
+
+    writeJar( jar, 100 )
+    assertEquals( 1, cacher.cachedJarsFiles( classpath ).size )
+    assertEquals( 1, cacher.cachedJarsFiles( classpath ).size )
+    assertEquals( 100, cacher.jarsCache.weight )
+
+    // Rebuilt jar at the same path.
+    writeJar( jar, 200 )
+    cacher.cachedJarsFiles( classpath )
+    assertEquals( 1, cacher.jarsCache.size )
+    assertEquals( 200, cacher.jarsCache.weight )
+
+    val stats = cacher.jarsCache.stats
+    assertEquals( 1, stats.hit )
+    assertEquals( 2, stats.miss )
+    assertEquals( 1, stats.evict )
+
+    // Limit below jar IR size disables retention.
+    cacher.resize( 100 )
+    assertEquals( 0, cacher.jarsCache.size )
+  }
+
+  @Test
+  def lazyJarFiles : Unit = {
+    val root = Files.createTempDirectory( "cacher" ).toFile
+    val jarList = ( 1 to 3 ).map { index =>
+      val jar = new File( root, s"library-${index}.jar" )
+      writeJar( jar, index * 10 )
+      jar
+    }
+    val cacher = Cacher()
+    val fileList = cacher.cachedJarsFiles( jarList.toArray, hasLazy = true )
+    // Class path order is preserved.
+    assertEquals( jarList.map( _.getPath + ":test/Main.sjsir" ), fileList.map( _.path ) )
+    // Lazy content is weighed by indexed entry size.
+    assertEquals( 60, cacher.jarsCache.weight )
+    assertEquals( Seq( 10, 20, 30 ), fileList.map( _.asInstanceOf[ VirtualBinaryFile ].content.length ) )
+  }
+
+  @Test
+  def hashIdentity : Unit = {
+    val root = Files.createTempDirectory( "cacher" ).toFile
+    val jar = new File( root, "library.jar" )
+    writeJar( jar, 10 )
+    assertEquals( Cacher.jarKey( jar, true ), Cacher.jarKey( jar, true ) )
+    assertEquals( "", Cacher.jarKey( jar, false ).hash )
+  }
+
+  @Test
+  def updateDirFiles : Unit = {
+    val root = Files.createTempDirectory( "cacher" ).toFile
+    val folder = new File( root, "test" )
+    folder.mkdirs
+    def touch( name : String ) = {
+      val file = new File( folder, name )
+      Files.write( file.toPath, Array[ Byte ]( 1 ) )
+      file
+    }
+    val fileA = touch( "A.sjsir" )
+    val fileB = touch( "B.sjsir" )
+    val classpath = Array( root )
+    val cacher = Cacher()
+
+    def names( update : Array[ UpdateResult ] ) = {
+      cacher.cachedDirsFiles( classpath, update ).map( _.relativePath ).toSet
+    }
+
+    assertEquals( Set( "/test/A.sjsir", "/test/B.sjsir" ), names( Array() ) )
+
+    fileB.delete
+    val fileC = touch( "C.sjsir" )
+    val update = Array( UpdateResult( root, Array( fileA, fileC ), Array( fileB ) ) )
+    assertEquals( Set( "/test/A.sjsir", "/test/C.sjsir" ), names( update ) )
+
+    // Unchanged root keeps snapshot.
+    val rootPast = cacher.linkerCache.values.head
+    names( Array() )
+    assertSame( rootPast, cacher.linkerCache.values.head )
+  }
+
+}
@@ -0,0 +1,62 @@
+package com.carrotgarden.maven.scalor.scalajs
+
+import java.io.File
+import java.nio.file.Files
+
+import org.junit.jupiter.api._
+import org.junit.jupiter.api.Assertions._
+import org.junit.runner.RunWith
+import org.junit.platform.runner.JUnitPlatform
+
+import org.scalajs.core.tools.io.MemVirtualJSFile
+
+@RunWith( classOf[ JUnitPlatform ] )
+class ClosureTest {
+
+  import Closure._
+
+  @Test
+  def cacheKey() : Unit = {
+    val output = new MemVirtualJSFile( "runtime.min.js" )
+    def source( content : String, sourceMap : Option[ String ] = None ) = {
+      new MemVirtualJSFile( "runtime.min.js" ).withContent( content ).withSourceMap( sourceMap )
+    }
+    val key = Closure.cacheKey( "options", output, source( "var a = 1;" ) )
+    assertEquals( key, Closure.cacheKey( "options", output, source( "var a = 1;" ) ) )
+    assertNotEquals( key, Closure.cacheKey( "changed", output, source( "var a = 1;" ) ) )
+    assertNotEquals( key, Closure.cacheKey( "options", output, source( "var a = 2;" ) ) )
+    assertNotEquals( key, Closure.cacheKey( "options", output, source( "var a = 1;", Some( "{}" ) ) ) )
+  }
+
+  @Test
+  def readWriteEvict() : Unit = {
+    val folder = Files.createTempDirectory( "closure-" ).toFile
+    val settings = Settings( folder, 10 )
+    val entryA = Entry( "12345", Some( "12" ) )
+    val entryB = Entry( "67890", None )
+
+    assertEquals( None, readEntry( settings, "a", true ) )
+    writeEntry( settings, "a", entryA )
+    assertEquals( Some( entryA ), readEntry( settings, "a", true ) )
+    assertEquals( Some( entryA.copy( sourceMap = None ) ), readEntry( settings, "a", false ) )
+
+    contentFile( settings, "a" ).setLastModified( 1000 )
+    sourceMapFile( settings, "a" ).setLastModified( 2000 )
+    writeEntry( settings, "b", entryB )
+    assertEquals( None, readEntry( settings, "a", true ) )
+    // Entry is evicted as a whole.
+    assertFalse( contentFile( settings, "a" ).exists )
+    assertFalse( sourceMapFile( settings, "a" ).exists )
+    assertEquals( Some( entryB ), readEntry( settings, "b", false ) )
+  }
+
+  @Test
+  def closureLinker() : Unit = {
+    val settings = Some( Settings( new File( "target/closure" ), 0 ) )
+    val options = Linker.Options( closureCompiler = true )
+    assertTrue( Linker.newLinker( options, settings ).isInstanceOf[ CacheLinker ] )
+    assertFalse( Linker.newLinker( options, None ).isInstanceOf[ CacheLinker ] )
+    assertFalse( Linker.newLinker( options.copy( closureCompiler = false ), settings ).isInstanceOf[ CacheLinker ] )
+  }
+
+}
@@ -0,0 +1,44 @@
+package com.carrotgarden.maven.scalor.scalajs
+
+import org.junit.jupiter.api._
+import org.junit.jupiter.api.Assertions._
+import org.junit.runner.RunWith
+import org.junit.platform.runner.JUnitPlatform
+
+@RunWith( classOf[ JUnitPlatform ] )
+class EnginesTest {
+
+  import Linker._
+
+  @Test
+  def checkoutRelease() = {
+    Engines.clear()
+    Engines.resize( 1, 100 )
+    val statsPast = Engines.stats
+
+    val idFast = linkerEngineId( Options() )
+    val idFull = linkerEngineId( Options( optimizer = true ) )
+
+    val engine1 = Engines.checkout( idFast )( newEngine( Options() ) )
+    val engine2 = Engines.checkout( idFast )( newEngine( Options() ) )
+    assertNotSame( engine1, engine2 )
+
+    Engines.release( idFast, engine1 )
+    Engines.release( idFast, engine2 ) // duplicate idle engine is dropped
+    assertSame( engine1, Engines.checkout( idFast )( newEngine( Options() ) ) )
+    Engines.release( idFast, engine1 )
+
+    val engine3 = Engines.checkout( idFull )( newEngine( Options( optimizer = true ) ) )
+    Engines.release( idFull, engine3 ) // evicts least recent above limit
+
+    val stats = Engines.stats
+    assertEquals( 1, stats.idle )
+    assertEquals( 3, stats.created - statsPast.created )
+    assertEquals( 1, stats.reused - statsPast.reused )
+    assertEquals( 2, stats.evicted - statsPast.evicted )
+
+    Engines.clear()
+    assertEquals( 0, Engines.stats.idle )
+  }
+
+}
@@ -0,0 +1,97 @@
+package com.carrotgarden.maven.scalor.scalajs
+
+import java.io.File
+import java.io.FileOutputStream
+import java.nio.file.Files
+import java.util.zip.CRC32
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+import org.junit.jupiter.api._
+import org.junit.jupiter.api.Assertions._
+import org.junit.runner.RunWith
+import org.junit.platform.runner.JUnitPlatform
+
+import org.scalajs.core.tools.io.VirtualBinaryFile
+
+@RunWith( classOf[ JUnitPlatform ] )
+class IndexTest {
+
+  val stored = Array.tabulate[ Byte ]( 300 )( _.toByte )
+  val deflated = Array.fill[ Byte ]( 5000 )( 7 )
+
+  def writeJar( jar : File ) : Unit = {
+    val output = new ZipOutputStream( new FileOutputStream( jar ) )
+    try {
+      val entry = new ZipEntry( "test/Stored.sjsir" )
+      val crc = new CRC32
+      crc.update( stored )
+      entry.setMethod( ZipEntry.STORED )
+      entry.setSize( stored.length )
+      entry.setCrc( crc.getValue )
+      output.putNextEntry( entry )
+      output.write( stored )
+      output.closeEntry()
+      output.putNextEntry( new ZipEntry( "test/Deflated.sjsir" ) )
+      output.write( deflated )
+      output.closeEntry()
+      output.putNextEntry( new ZipEntry( "test/Other.class" ) )
+      output.write( deflated )
+      output.closeEntry()
+    } finally {
+      output.close()
+    }
+  }
+
+  def contentMap( fileList : Seq[ Cacher.LinkerFile ] ) : Map[ String, Seq[ Byte ] ] = {
+    fileList.map { file =>
+      ( file.relativePath, file.asInstanceOf[ VirtualBinaryFile ].content.toSeq )
+    }.toMap
+  }
+
+  @Test
+  def readEntries : Unit = {
+    val root = Files.createTempDirectory( "index" ).toFile
+    val jar = new File( root, "library.jar" )
+    writeJar( jar )
+
+    val fileList = Index.linkerFiles( jar ).get
+    assertEquals( 2, fileList.size )
+    assertEquals( contentMap( Cacher.extractJar( jar ) ), contentMap( fileList ) )
+    assertEquals( stored.toSeq, contentMap( fileList )( "test/Stored.sjsir" ) )
+    assertEquals( deflated.toSeq, contentMap( fileList )( "test/Deflated.sjsir" ) )
+  }
+
+  @Test
+  def changedJar : Unit = {
+    val root = Files.createTempDirectory( "index" ).toFile
+    val jar = new File( root, "library.jar" )
+    writeJar( jar )
+
+    val fileList = Index.linkerFiles( jar ).get
+    Files.write( jar.toPath, Array[ Byte ]( 1, 2, 3 ) )
+    fileList.foreach { file =>
+      assertThrows( classOf[ IllegalStateException ], () => {
+        file.asInstanceOf[ VirtualBinaryFile ].content
+        ()
+      } )
+    }
+  }
+
+  @Test
+  def persistLoad : Unit = {
+    val root = Files.createTempDirectory( "index" ).toFile
+    val jar = new File( root, "library.jar" )
+    val indexFile = new File( root, "index/index.bin" )
+    writeJar( jar )
+
+    val record = Index.provideRecord( jar ).get
+    Index.persist( indexFile )
+    assertTrue( indexFile.isFile )
+
+    Index.recordMap.clear()
+    Index.load( indexFile )
+    assertEquals( Some( record ), Index.recordMap.get( jar.getCanonicalPath ) )
+  }
+
+}
@@ -1,5 +1,8 @@
 package com.carrotgarden.maven.scalor.scalajs
 
+import java.io.File
+import java.nio.file.Files
+
 import org.junit.jupiter.api._
 import org.junit.jupiter.api.Assertions._
 import org.junit.runner.RunWith
@@ -44,4 +47,36 @@ class LinkerTest {
     assertEquals( linkerEngineId( source ), linkerEngineId( target ) )
   }
 
+  @Test
+  def fingerprintDigest() = {
+    val root = Files.createTempDirectory( "linker" ).toFile
+    val classes = new File( root, "classes" )
+    classes.mkdirs
+    val sjsir = new File( classes, "Main.sjsir" )
+    Files.write( sjsir.toPath, Array[ Byte ]( 1 ) )
+    val context = Context(
+      options          = Options(),
+      classpath        = Array( classes ),
+      runtime          = new File( root, "runtime.js" ),
+      updateList       = Array(),
+      initializerList  = Array(),
+      initializerRegex = "",
+      cacheJarLimit    = 0,
+      cacheJarHash     = false,
+      cacheJarLazy     = false,
+      cacheIndexFile   = None,
+      closureCache     = None,
+      metrics          = None,
+      enginePoolLimit  = 0,
+      enginePoolMemory = 0,
+      hasLogStats      = false
+    )
+    val regex = ".+[.]sjsir"
+    val digest = Linker.fingerprintDigest( context, regex )
+    assertEquals( digest, Linker.fingerprintDigest( context, regex ) )
+    assertNotEquals( digest, Linker.fingerprintDigest( context.copy( options = Options( optimizer = true ) ), regex ) )
+    Files.write( sjsir.toPath, Array[ Byte ]( 1, 2 ) )
+    assertNotEquals( digest, Linker.fingerprintDigest( context, regex ) )
+  }
+
 }
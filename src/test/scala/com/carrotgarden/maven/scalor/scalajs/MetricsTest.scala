@@ -0,0 +1,67 @@
+package com.carrotgarden.maven.scalor.scalajs
+
+import java.io.File
+import java.nio.file.Files
+
+import org.junit.jupiter.api._
+import org.junit.jupiter.api.Assertions._
+import org.junit.runner.RunWith
+import org.junit.platform.runner.JUnitPlatform
+
+import org.scalajs.core.tools.logging.NullLogger
+
+@RunWith( classOf[ JUnitPlatform ] )
+class MetricsTest {
+
+  def loadText( file : File ) = new String( Files.readAllBytes( file.toPath ), "UTF-8" )
+
+  @Test
+  def collectAndPersist : Unit = {
+    val collector = new Metrics.Collector( NullLogger )
+    collector.time( Metrics.cacherDirsTitle, 1000000 )
+    collector.time( Metrics.cacherJarsTitle, 2000000 )
+    collector.time( "Linker: Compute reachability", 3000000 )
+    collector.time( "Refiner: Compute reachability", 4000000 )
+    collector.time( "Inc. optimizer", 5000000 )
+    collector.time( "Emitter (write output)", 6000000 )
+    collector.time( "Emitter (write output)", 6000000 )
+
+    val root = Files.createTempDirectory( "metrics" ).toFile
+    val runtime = new File( root, "runtime.js" )
+    Files.write( runtime.toPath, Array[ Byte ]( 1, 2, 3 ) )
+    val settings = Metrics.Settings(
+      new File( root, "scala-js-metrics-report.json" ),
+      new File( root, "scala-js-metrics-summary.json" ),
+      "group:artifact:jar:1.0",
+      "session-1"
+    )
+    val usage = Metrics.Usage( 10, 2, 100, 1, 5 )
+    val report = collector.report( settings, runtime, usage )
+    assertEquals( 1, report.cacherDirsTime )
+    assertEquals( 2, report.cacherJarsTime )
+    assertEquals( 7, report.frontendTime )
+    assertEquals( 5, report.optimizerTime )
+    assertEquals( 12, report.emitterTime )
+    assertEquals( 3, report.outputSize )
+    assertEquals( Seq( 1, 1, 1, 1, 1, 2 ), report.phaseList.map( _.count ) )
+
+    val runtimeMin = new File( root, "runtime.min.js" ).getAbsolutePath
+    Metrics.persist( settings, report )
+    Metrics.persist( settings, report.copy( runtime = runtimeMin ) )
+    Metrics.persist( settings, report )
+    val reportList = Metrics.Codec.parse( loadText( settings.report ) )
+    assertEquals( Seq( runtimeMin, runtime.getAbsolutePath ), reportList.map( _.runtime ) )
+    assertEquals( usage, reportList.last.usage )
+
+    val summary = Metrics.Codec.parseSummary( loadText( settings.summary ) )
+    val summaryList = summary.reportList.filter( _.project == settings.project )
+    assertEquals( 2, summaryList.size )
+    assertEquals( summary.reportList.map( _.outputSize ).sum, summary.outputSize )
+
+    // New build session resets the summary.
+    Metrics.persist( settings.copy( session = "session-2" ), report )
+    val summaryNext = Metrics.Codec.parseSummary( loadText( settings.summary ) )
+    assertEquals( Seq( runtime.getAbsolutePath ), summaryNext.reportList.map( _.runtime ) )
+  }
+
+}
@@ -0,0 +1,83 @@
+package com.carrotgarden.maven.scalor.scalanative
+
+import java.io.File
+import java.nio.file.Files
+
+import scala.collection.mutable
+
+import org.junit.jupiter.api._
+import org.junit.jupiter.api.Assertions._
+import org.junit.runner.RunWith
+import org.junit.platform.runner.JUnitPlatform
+
+@RunWith( classOf[ JUnitPlatform ] )
+class JobsTest {
+
+  def produce( root : File, name : String, size : Int ) : File = {
+    val file = new File( root, name )
+    Files.write( file.toPath, new Array[ Byte ]( size ) )
+    file
+  }
+
+  @Test
+  def largestFirst() : Unit = {
+    val root = Files.createTempDirectory( "jobs-" ).toFile
+    val fileList = Seq(
+      produce( root, "small", 10 ),
+      produce( root, "large", 30 ),
+      produce( root, "medium", 20 )
+    )
+    val orderList = mutable.ArrayBuffer[ String ]()
+    Jobs.resize( 1 )
+    assertEquals( 1, Jobs.limit )
+    val resultList = Jobs.invoke( fileList ) { file =>
+      orderList.synchronized { orderList += file.getName }
+      file.length
+    }
+    assertEquals( Seq( "large", "medium", "small" ), orderList )
+    assertEquals( Seq( 10L, 30L, 20L ), resultList.map( _._1 ) )
+    assertEquals( fileList.map( _.getPath ), resultList.map( _._2.path ) )
+    Jobs.resize( 0 )
+    assertEquals( Jobs.defaultLimit, Jobs.limit )
+  }
+
+  @Test
+  def failure() : Unit = {
+    val root = Files.createTempDirectory( "jobs-" ).toFile
+    val fileList = Seq( produce( root, "file", 10 ) )
+    assertThrows( classOf[ IllegalStateException ], () => {
+      Jobs.invoke( fileList ) { file => throw new IllegalStateException( "failure" ) }
+      ()
+    } )
+  }
+
+  @Test
+  def cancelOnFailure() : Unit = {
+    val root = Files.createTempDirectory( "jobs-" ).toFile
+    val fileList = Seq(
+      produce( root, "small", 10 ),
+      produce( root, "large", 30 ),
+      produce( root, "medium", 20 )
+    )
+    val orderList = mutable.ArrayBuffer[ String ]()
+    Jobs.resize( 1 )
+    assertThrows( classOf[ IllegalStateException ], () => {
+      Jobs.invoke( fileList ) { file =>
+        orderList.synchronized { orderList += file.getName }
+        throw new IllegalStateException( "failure" )
+      }
+      ()
+    } )
+    assertEquals( Seq( "large" ), orderList )
+    Jobs.resize( 0 )
+  }
+
+  @Test
+  def configureOnce() : Unit = {
+    Jobs.configure( 3 )
+    val limit = Jobs.limit
+    Jobs.configure( 5 )
+    assertEquals( limit, Jobs.limit )
+  }
+
+}
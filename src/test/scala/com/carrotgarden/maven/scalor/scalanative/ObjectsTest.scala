@@ -0,0 +1,68 @@
+package com.carrotgarden.maven.scalor.scalanative
+
+import java.io.File
+import java.nio.file.Files
+
+import org.junit.jupiter.api._
+import org.junit.jupiter.api.Assertions._
+import org.junit.runner.RunWith
+import org.junit.platform.runner.JUnitPlatform
+
+@RunWith( classOf[ JUnitPlatform ] )
+class ObjectsTest {
+
+  import Objects._
+
+  def write( file : File, content : String ) = Files.write( file.toPath, content.getBytes( "UTF-8" ) )
+
+  def read( file : File ) = new String( Files.readAllBytes( file.toPath ), "UTF-8" )
+
+  @Test
+  def objectKey() : Unit = {
+    val root = Files.createTempDirectory( "objects-" ).toFile
+    val source = new File( root, "module.ll" )
+    write( source, "define i32 @main()" )
+    val key = Objects.objectKey( source, "clang", Seq( "-O0" ) )
+    assertEquals( key, Objects.objectKey( source, "clang", Seq( "-O0" ) ) )
+    assertNotEquals( key, Objects.objectKey( source, "clang@2", Seq( "-O0" ) ) )
+    assertNotEquals( key, Objects.objectKey( source, "clang", Seq( "-O2" ) ) )
+    assertNotEquals( key, Objects.objectKey( source, "clang", Seq( "-O", "0" ) ) )
+    write( source, "define i32 @main2()" )
+    assertNotEquals( key, Objects.objectKey( source, "clang", Seq( "-O0" ) ) )
+  }
+
+  @Test
+  def compilerIdentity() : Unit = {
+    val root = Files.createTempDirectory( "objects-" ).toFile
+    val binary = new File( root, "clang" )
+    write( binary, "#!/bin/sh\necho \"clang version 1.2.3\"\n" )
+    binary.setExecutable( true )
+    val identity = Objects.compilerIdentity( binary )
+    assertEquals( s"${binaryIdentity( binary )}@clang version 1.2.3", identity )
+    assertEquals( identity, Objects.compilerIdentity( binary ) )
+  }
+
+  @Test
+  def storeRestoreEvict() : Unit = {
+    val root = Files.createTempDirectory( "objects-" ).toFile
+    val settings = Settings( new File( root, "cache" ), 10 )
+    val targetA = new File( root, "a.ll.o" )
+    val targetB = new File( root, "b.ll.o" )
+
+    assertFalse( restore( settings, "a", targetA ) )
+    write( targetA, "123456" )
+    store( settings, "a", targetA )
+    Files.delete( targetA.toPath )
+    assertTrue( restore( settings, "a", targetA ) )
+    assertEquals( "123456", read( targetA ) )
+
+    objectFile( settings, "a" ).setLastModified( 1000 )
+    write( targetB, "789012" )
+    store( settings, "b", targetB )
+    ensureLimit( settings )
+    assertFalse( objectFile( settings, "a" ).exists )
+    assertTrue( objectFile( settings, "b" ).exists )
+    assertEquals( "123456", read( targetA ) )
+  }
+
+}
@@ -0,0 +1,87 @@
+package com.carrotgarden.maven.scalor.util
+
+import org.junit.jupiter.api._
+import org.junit.jupiter.api.Assertions._
+import org.junit.runner.RunWith
+import org.junit.platform.runner.JUnitPlatform
+
+@RunWith( classOf[ JUnitPlatform ] )
+class CacheTest extends AnyRef {
+
+  @Test
+  def evictLeastRecent : Unit = {
+    val evicted = scala.collection.mutable.Buffer[ String ]()
+    val cache = new Cache[ String, String ]( 2, ( key, value ) => evicted += key )
+    cache( "a" )( "1" )
+    cache( "b" )( "2" )
+    cache( "a" )( "x" ) // touch
+    cache( "c" )( "3" )
+    assertEquals( Seq( "b" ), evicted.toSeq )
+    assertEquals( Some( "1" ), cache.get( "a" ) )
+    assertEquals( None, cache.get( "b" ) )
+    assertEquals( Cache.Stats( 2, 1, 3, 1 ), cache.stats )
+  }
+
+  @Test
+  def resizeEvicts : Unit = {
+    val evicted = scala.collection.mutable.Buffer[ String ]()
+    val cache = new Cache[ String, String ]( 3, ( key, value ) => evicted += key )
+    cache( "a" )( "1" )
+    cache( "b" )( "2" )
+    cache( "c" )( "3" )
+    cache.resize( 1 )
+    assertEquals( Seq( "a", "b" ), evicted.toSeq )
+    cache.resize( 0 )
+    assertEquals( "4", cache( "d" )( "4" ) )
+    assertEquals( 0, cache.size )
+    assertEquals( Seq( "a", "b", "c" ), evicted.toSeq )
+  }
+
+  @Test
+  def evictByWeight : Unit = {
+    val evicted = scala.collection.mutable.Buffer[ String ]()
+    val cache = new Cache[ String, String ]( 5, ( key, value ) => evicted += key, _.length )
+    cache( "a" )( "12" )
+    cache( "b" )( "123" )
+    assertEquals( 5, cache.weight )
+    cache( "c" )( "1" )
+    assertEquals( Seq( "a" ), evicted.toSeq )
+    assertEquals( 4, cache.weight )
+    cache.put( "b", "1" )
+    assertEquals( 2, cache.weight )
+    cache.remove( "c" )
+    assertEquals( 1, cache.weight )
+  }
+
+  @Test
+  def provideOutsideLock : Unit = {
+    val cache = new Cache[ String, String ]( 2 )
+    val started = new java.util.concurrent.CountDownLatch( 1 )
+    val release = new java.util.concurrent.CountDownLatch( 1 )
+    val count = new java.util.concurrent.atomic.AtomicInteger()
+    def slow = {
+      count.incrementAndGet
+      started.countDown()
+      release.await()
+      "1"
+    }
+    val threadList = ( 1 to 3 ).map { _ =>
+      val thread = new Thread( () => { cache( "a" )( slow ); () } )
+      thread.start()
+      thread
+    }
+    started.await()
+    assertEquals( "2", cache( "b" )( "2" ) )
+    release.countDown()
+    threadList.foreach( _.join() )
+    assertEquals( 1, count.get )
+    assertEquals( Some( "1" ), cache.get( "a" ) )
+    assertThrows( classOf[ IllegalStateException ], () => {
+      cache( "c" )( throw new IllegalStateException( "failure" ) )
+      ()
+    } )
+    assertEquals( None, cache.get( "c" ) )
+    assertEquals( "3", cache( "c" )( "3" ) )
+  }
+
+}
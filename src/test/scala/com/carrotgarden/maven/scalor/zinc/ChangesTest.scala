@@ -0,0 +1,37 @@
+package com.carrotgarden.maven.scalor.zinc
+
+import java.io.File
+
+import org.junit.jupiter.api._
+import org.junit.jupiter.api.Assertions._
+import org.junit.runner.RunWith
+import org.junit.platform.runner.JUnitPlatform
+
+import sbt.internal.inc.Analysis
+import sbt.internal.inc.Stamper
+import sbt.internal.inc.Stamps
+
+@RunWith( classOf[ JUnitPlatform ] )
+class ChangesTest {
+
+  @Test
+  def sourceChanges : Unit = {
+    val fileA = new File( "/tmp/A.scala" )
+    val fileB = new File( "/tmp/B.scala" )
+    val fileC = new File( "/tmp/C.scala" )
+    val fileD = new File( "/tmp/D.scala" )
+
+    val stamp = Stamper.forLastModified( fileA )
+    val sourceMap = Seq( fileA, fileB, fileC ).map( file => ( file, stamp ) ).toMap
+    val previous = Analysis.empty.copy( stamps = Stamps( Map(), sourceMap, Map() ) )
+
+    val changes = Changes.sourceChanges( previous, Array( fileA, fileB, fileD ), Set( fileA, fileD ) )
+
+    assertEquals( Set( fileD ), changes.added )
+    assertEquals( Set( fileC ), changes.removed )
+    assertEquals( Set( fileA ), changes.changed )
+    assertEquals( Set( fileB ), changes.unmodified )
+    assertFalse( changes.isEmpty )
+  }
+
+}
@@ -0,0 +1,58 @@
+package com.carrotgarden.maven.scalor.zinc
+
+import java.io.File
+import java.io.FileOutputStream
+import java.nio.file.Files
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+
+import org.junit.jupiter.api._
+import org.junit.jupiter.api.Assertions._
+import org.junit.runner.RunWith
+import org.junit.platform.runner.JUnitPlatform
+
+@RunWith( classOf[ JUnitPlatform ] )
+class DefinesTest {
+
+  def writeJar( jar : File, nameList : String* ) : Unit = {
+    val output = new ZipOutputStream( new FileOutputStream( jar ) )
+    try {
+      nameList.foreach { name =>
+        output.putNextEntry( new ZipEntry( name ) )
+        output.closeEntry()
+      }
+    } finally {
+      output.close()
+    }
+  }
+
+  @Test
+  def indexRoundTrip : Unit = {
+    val root = Files.createTempDirectory( "defines" ).toFile
+    val jar = new File( root, "library.jar" )
+    writeJar( jar, "a/b/C.class", "a/b/C$D.class", "META-INF/MANIFEST.MF" )
+
+    val defines = Defines.definesClass( jar )
+    assertTrue( defines( "a.b.C" ) )
+    assertTrue( defines( "a.b.C$D" ) )
+    assertFalse( defines( "a.b.E" ) )
+    assertFalse( defines( "META-INF.MANIFEST" ) )
+
+    val indexFile = new File( root, "index/class-index.bin" )
+    Defines.persist( indexFile )
+    assertTrue( indexFile.isFile )
+
+    val key = jar.getCanonicalPath
+    val entry = Defines.entryMap( key )
+    Defines.entryMap.remove( key )
+    Defines.load( indexFile )
+    assertEquals( Some( entry ), Defines.entryMap.get( key ) )
+
+    // Changed jar is re-scanned.
+    writeJar( jar, "a/b/E.class" )
+    jar.setLastModified( entry.modified + 2000 )
+    assertTrue( Defines.definesClass( jar )( "a.b.E" ) )
+    assertFalse( Defines.definesClass( jar )( "a.b.C" ) )
+  }
+
+}
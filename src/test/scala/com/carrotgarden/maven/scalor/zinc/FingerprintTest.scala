@@ -0,0 +1,40 @@
+package com.carrotgarden.maven.scalor.zinc
+
+import java.io.File
+import java.nio.file.Files
+
+import org.junit.jupiter.api._
+import org.junit.jupiter.api.Assertions._
+import org.junit.runner.RunWith
+import org.junit.platform.runner.JUnitPlatform
+
+@RunWith( classOf[ JUnitPlatform ] )
+class FingerprintTest {
+
+  @Test
+  def detectChange : Unit = {
+    val root = Files.createTempDirectory( "fingerprint" ).toFile
+    val source = new File( root, "A.scala" )
+    val folder = new File( root, "classes" )
+    folder.mkdirs
+    Files.write( source.toPath, "class A".getBytes )
+
+    def digest( options : String ) = Fingerprint.digestFrom( Seq( options ), Seq( source ), Seq( folder ) )
+
+    val digestPast = digest( "-deprecation" )
+    assertEquals( digestPast, digest( "-deprecation" ) )
+    assertNotEquals( digestPast, digest( "-feature" ) )
+
+    val file = Fingerprint.fileFrom( new File( root, "main.zip" ) )
+    Fingerprint.save( file, digestPast )
+    assertTrue( Fingerprint.hasCurrent( file, digestPast ) )
+
+    // Upstream class path folder changed.
+    Files.write( new File( folder, "B.class" ).toPath, Array[ Byte ]( 1 ) )
+    assertFalse( Fingerprint.hasCurrent( file, digest( "-deprecation" ) ) )
+
+    Fingerprint.remove( file )
+    assertFalse( Fingerprint.hasCurrent( file, digestPast ) )
+  }
+
+}
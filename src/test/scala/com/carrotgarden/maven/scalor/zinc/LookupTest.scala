@@ -0,0 +1,45 @@
+package com.carrotgarden.maven.scalor.zinc
+
+import java.io.File
+import java.nio.file.Files
+import java.util.Optional
+
+import org.junit.jupiter.api._
+import org.junit.jupiter.api.Assertions._
+import org.junit.runner.RunWith
+import org.junit.platform.runner.JUnitPlatform
+
+import sbt.internal.inc.Analysis
+import xsbti.compile.AnalysisContents
+import xsbti.compile.AnalysisStore
+
+@RunWith( classOf[ JUnitPlatform ] )
+class LookupTest {
+
+  case class EmptyStore() extends AnalysisStore {
+    override def get() = Optional.empty[ AnalysisContents ]
+    override def set( contents : AnalysisContents ) = ()
+  }
+
+  @Test
+  def resolveRegistered : Unit = {
+    val root = Files.createTempDirectory( "lookup" ).toFile
+    val mainFolder = new File( root, "classes" ); mainFolder.mkdirs
+    val testFolder = new File( root, "test-classes" ); testFolder.mkdirs
+    val mainCache = new File( root, "main.zip" ); mainCache.createNewFile
+
+    Lookup.register( mainFolder, EmptyStore(), mainCache, Analysis.empty, 64 )
+
+    val testLookup = Lookup.newLookup( testFolder )
+    val mainLookup = Lookup.newLookup( mainFolder )
+    assertTrue( testLookup.analysis( mainFolder ).isPresent )
+    assertFalse( mainLookup.analysis( mainFolder ).isPresent )
+    assertFalse( testLookup.analysis( testFolder ).isPresent )
+
+    // Store changed by another build and now empty.
+    mainCache.setLastModified( mainCache.lastModified - 10000 )
+    assertFalse( testLookup.analysis( mainFolder ).isPresent )
+    assertEquals( None, Lookup.entryCache.get( Lookup.keyFrom( mainFolder ) ) )
+  }
+
+}
@@ -0,0 +1,48 @@
+package com.carrotgarden.maven.scalor.zinc
+
+import java.io.File
+import java.nio.file.Files
+
+import org.junit.jupiter.api._
+import org.junit.jupiter.api.Assertions._
+import org.junit.runner.RunWith
+import org.junit.platform.runner.JUnitPlatform
+
+import sbt.internal.inc.Analysis
+import xsbti.compile.CompileProgress
+
+@RunWith( classOf[ JUnitPlatform ] )
+class MetricsTest {
+
+  object NoProgress extends CompileProgress {
+    override def startUnit( phase : String, unitPath : String ) : Unit = ()
+    override def advance( current : Int, total : Int ) : Boolean = true
+  }
+
+  @Test
+  def collectAndPersist : Unit = {
+    assertEquals( "main", Metrics.scopeFrom( new File( "target/scalor/cache/main.zip" ) ) )
+
+    val collector = Metrics.Collector( NoProgress, "main", 3 )
+    collector.startUnit( "parser", "A.scala" )
+    collector.advance( 1, 4 )
+    collector.startUnit( "parser", "B.scala" )
+    collector.advance( 2, 4 )
+    collector.startUnit( "typer", "A.scala" )
+    collector.advance( 3, 4 )
+    val report = collector.report( Analysis.empty )
+    assertEquals( Seq( "parser", "typer" ), report.phaseList.map( _.name ) )
+    assertEquals( Seq( 2, 1 ), report.phaseList.map( _.unitCount ) )
+    assertEquals( 2, report.sourceCompiled )
+    assertEquals( 3, report.sourceTotal )
+    assertEquals( 0, report.cycleCount )
+
+    val root = Files.createTempDirectory( "metrics" ).toFile
+    val file = new File( root, "scala-metrics-report.json" )
+    Metrics.persist( file, report )
+    Metrics.persist( file, report.copy( scope = "test" ) )
+    Metrics.persist( file, report )
+    assertEquals( Seq( "test", "main" ), Metrics.Codec.parse( new String( Files.readAllBytes( file.toPath ), "UTF-8" ) ).map( _.scope ) )
+  }
+
+}
@@ -0,0 +1,42 @@
+package com.carrotgarden.maven.scalor.zinc
+
+import java.io.File
+import java.nio.file.Files
+
+import org.junit.jupiter.api._
+import org.junit.jupiter.api.Assertions._
+import org.junit.runner.RunWith
+import org.junit.platform.runner.JUnitPlatform
+
+@RunWith( classOf[ JUnitPlatform ] )
+class ResolveTest {
+
+  import Resolve._
+
+  @Test
+  def recordRoundTrip : Unit = {
+    val root = Files.createTempDirectory( "resolve" ).toFile
+    val jar = new File( root, "scala-library-2.12.7.jar" )
+    Files.write( jar.toPath, Array[ Byte ]( 1, 2, 3 ) )
+
+    val coordinate = Coordinate(
+      "org.scala-lang", "scala-library", "2.12.7", "", "jar", "compile", Stamp.from( jar )
+    )
+    val record = Record( "key", Seq(), Seq( coordinate ), Seq() )
+    val recordFile = new File( root, "install.json" )
+    saveRecord( recordFile, record )
+
+    val loaded = loadRecord( recordFile )
+    assertEquals( Some( record ), loaded )
+    assertTrue( loaded.get.hasCurrent )
+
+    val artifact = loaded.get.response.defineCompiler.head
+    assertEquals( null, artifact.getClassifier )
+    assertEquals( jar.getCanonicalFile, artifact.getFile.getCanonicalFile )
+
+    // Changed artifact invalidates record.
+    Files.write( jar.toPath, Array[ Byte ]( 1, 2, 3, 4 ) )
+    assertFalse( loaded.get.hasCurrent )
+  }
+
+}
@@ -0,0 +1,61 @@
+package com.carrotgarden.maven.scalor.zinc
+
+import java.io.File
+import java.nio.file.Files
+
+import org.junit.jupiter.api._
+import org.junit.jupiter.api.Assertions._
+import org.junit.runner.RunWith
+import org.junit.platform.runner.JUnitPlatform
+
+import sbt.internal.inc.Analysis
+import sbt.internal.inc.CompileOutput
+import sbt.internal.inc.FileAnalysisStore
+import xsbti.T2
+import xsbti.compile.AnalysisContents
+import xsbti.compile.CompileOrder
+import xsbti.compile.FileHash
+import xsbti.compile.MiniOptions
+import xsbti.compile.MiniSetup
+
+@RunWith( classOf[ JUnitPlatform ] )
+class StoresTest {
+
+  def newContent( folder : File ) : AnalysisContents = {
+    val options = MiniOptions.of( Array[ FileHash ](), Array( "-deprecation" ), Array[ String ]() )
+    val setup = MiniSetup.of(
+      CompileOutput( folder ), options, "2.12.7", CompileOrder.Mixed, true, Array[ T2[ String, String ] ]()
+    )
+    AnalysisContents.create( Analysis.empty, setup )
+  }
+
+  @Test
+  def layoutRoundTrip : Unit = {
+    val root = Files.createTempDirectory( "stores" ).toFile
+    Seq( Stores.Layout.Compact, Stores.Layout.Mapped ).foreach { layout =>
+      val file = new File( root, s"state-${layout}.zip" )
+      val store = Stores.LayoutStore( file, layout )
+      store.set( newContent( root ) )
+      assertEquals( Some( layout ), Stores.readLayout( file ) )
+      val content = store.get()
+      assertTrue( content.isPresent )
+      assertEquals( "2.12.7", content.get.getMiniSetup.compilerVersion )
+      assertEquals( "-deprecation", content.get.getMiniSetup.options.scalacOptions.head )
+    }
+  }
+
+  @Test
+  def migrateFromZip : Unit = {
+    val root = Files.createTempDirectory( "stores" ).toFile
+    val file = new File( root, "state.zip" )
+    FileAnalysisStore.text( file ).set( newContent( root ) )
+    assertTrue( Stores.hasZip( file ) )
+    val store = Compiler.storeFrom( file, Compiler.Store.Compact )
+    val content = store.get()
+    assertTrue( content.isPresent )
+    store.set( content.get )
+    assertEquals( Some( Stores.Layout.Compact ), Stores.readLayout( file ) )
+    assertTrue( Compiler.storeFrom( file, Compiler.Store.Text ).get().isPresent )
+  }
+
+}